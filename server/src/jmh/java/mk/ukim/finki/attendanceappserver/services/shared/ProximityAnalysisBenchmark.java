@@ -0,0 +1,107 @@
+package mk.ukim.finki.attendanceappserver.services.shared;
+
+import mk.ukim.finki.attendanceappserver.config.ProximityCalibrationProperties;
+import mk.ukim.finki.attendanceappserver.domain.enums.ProximityLevel;
+import mk.ukim.finki.attendanceappserver.dto.ProximityDetectionDTO;
+import mk.ukim.finki.attendanceappserver.dto.ProximityVerificationRequestDTO;
+import mk.ukim.finki.attendanceappserver.dto.ProximityVerificationResponseDTO;
+import mk.ukim.finki.attendanceappserver.services.cache.BeaconRegistry;
+import mk.ukim.finki.attendanceappserver.services.cache.ProximityCalibrationCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single-pass proximity analysis with the previous five-pass implementation
+ * on a 60 second verification of one student.
+ * Run with ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProximityAnalysisBenchmark {
+
+    private static final String ROOM_ID = "201A";
+    private static final String[] LEVELS = {"NEAR", "MEDIUM", "MEDIUM", "FAR", "OUT_OF_RANGE"};
+
+    @Param({"60", "300", "600"}) // Detections during 60 seconds, from one to ten scans per second
+    private int detectionCount;
+
+    // Without a loaded beacon registry or room calibrations, detections are taken as reported
+    private final ProximityAnalysisService proximityAnalysisService = new ProximityAnalysisService(
+            new BeaconRegistry(null), new ProximityCalibrationCache(null, new ProximityCalibrationProperties()));
+    private ProximityVerificationRequestDTO request;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2025, 10, 1, 10, 0);
+        List<ProximityDetectionDTO> detections = new ArrayList<>(detectionCount);
+        for (int i = 0; i < detectionCount; i++) {
+            ProximityDetectionDTO detection = new ProximityDetectionDTO();
+            detection.setStudentIndex("211001");
+            detection.setBeaconDeviceId("BCN03");
+            detection.setDetectedRoomId(ROOM_ID);
+            detection.setRssi(-40 - random.nextInt(45));
+            detection.setProximityLevel(LEVELS[random.nextInt(LEVELS.length)]);
+            detection.setEstimatedDistance(1 + random.nextDouble() * 25);
+            detection.setDetectionTimestamp(start.plusNanos(60_000_000_000L / detectionCount * i));
+            detection.setBeaconType("DEDICATED");
+            detections.add(detection);
+        }
+        request = ProximityVerificationRequestDTO.builder()
+                .studentIndex("211001")
+                .expectedRoomId(ROOM_ID)
+                .verificationDurationSeconds(60)
+                .proximityDetections(detections)
+                .build();
+    }
+
+    @Benchmark
+    public ProximityVerificationResponseDTO singlePass() {
+        return proximityAnalysisService.analyzeProximityDetections(request).block();
+    }
+
+    @Benchmark
+    public void fivePass(Blackhole blackhole) {
+        // The metrics as the previous implementation computed them
+        List<ProximityDetectionDTO> detections = request.getProximityDetections();
+        blackhole.consume(detections.stream()
+                .filter(d -> ProximityLevel.NEAR.name().equals(d.getProximityLevel()) ||
+                        ProximityLevel.MEDIUM.name().equals(d.getProximityLevel()) ||
+                        ProximityLevel.FAR.name().equals(d.getProximityLevel()))
+                .count());
+        blackhole.consume(detections.stream()
+                .filter(d -> ProximityLevel.NEAR.name().equals(d.getProximityLevel()) ||
+                        ProximityLevel.MEDIUM.name().equals(d.getProximityLevel()))
+                .count());
+        blackhole.consume(detections.stream()
+                .filter(d -> !request.getExpectedRoomId().equals(d.getDetectedRoomId()))
+                .count());
+        blackhole.consume(detections.stream()
+                .filter(d -> ProximityLevel.OUT_OF_RANGE.name().equals(d.getProximityLevel()))
+                .count());
+        blackhole.consume(detections.stream()
+                .mapToDouble(ProximityDetectionDTO::getEstimatedDistance)
+                .average()
+                .orElse(Double.MAX_VALUE));
+    }
+}
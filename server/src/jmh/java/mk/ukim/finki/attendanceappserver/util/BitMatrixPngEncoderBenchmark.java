@@ -0,0 +1,66 @@
+package mk.ukim.finki.attendanceappserver.util;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the 1-bit PNG encoder with MatrixToImageWriter for an attendance token QR code.
+ * Run with ./gradlew jmh; allocation per image is reported by the gc profiler as gc.alloc.rate.norm
+ * and the PNG sizes of both paths are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BitMatrixPngEncoderBenchmark {
+
+    @Param({"300", "1000"}) // The presentation QR code and a projector-sized one
+    private int size;
+
+    private BitMatrix scaledMatrix;
+    private BitMatrix moduleMatrix;
+
+    @Setup
+    public void setUp() throws WriterException, IOException {
+        String token = UUID.nameUUIDFromBytes("benchmark".getBytes()).toString();
+        QRCodeWriter writer = new QRCodeWriter();
+        scaledMatrix = writer.encode(token, BarcodeFormat.QR_CODE, size, size);
+        moduleMatrix = writer.encode(token, BarcodeFormat.QR_CODE, 0, 0);
+
+        System.out.printf("%nPNG size at %dx%d: MatrixToImageWriter %d bytes, BitMatrixPngEncoder %d bytes%n",
+                size, size, matrixToImageWriter().length, bitMatrixPngEncoder().length);
+    }
+
+    @Benchmark
+    public byte[] matrixToImageWriter() throws IOException {
+        var outputStream = new ByteArrayOutputStream();
+        MatrixToImageWriter.writeToStream(scaledMatrix, "PNG", outputStream);
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] bitMatrixPngEncoder() {
+        return BitMatrixPngEncoder.encode(moduleMatrix, size);
+    }
+}
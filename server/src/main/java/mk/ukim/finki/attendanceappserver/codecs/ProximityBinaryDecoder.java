@@ -0,0 +1,161 @@
+package mk.ukim.finki.attendanceappserver.codecs;
+
+import mk.ukim.finki.attendanceappserver.domain.enums.ProximityLevel;
+import mk.ukim.finki.attendanceappserver.dto.AttendanceRegistrationRequestDTO;
+import mk.ukim.finki.attendanceappserver.dto.ProximityDetectionDTO;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractDataBufferDecoder;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.util.MimeType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes attendance registrations with proximity detections sent in the compact binary format
+ * ({@value #MEDIA_TYPE_VALUE}) instead of JSON.
+ * Fields shared by all detections are sent once, beacons are sent once in a table and each detection is
+ * reduced to a beacon reference, a timestamp delta and small integers.
+ *
+ * <pre>
+ * request    := version:u8 token:str studentIndex:str deviceId:str expectedRoomId:str
+ *               durationSeconds:optVarint beaconCount:varint beacon* sampleCount:varint [baseTimestamp:i64 sample*]
+ * beacon     := beaconDeviceId:str detectedRoomId:str beaconType:str
+ * sample     := beaconRef:varint timestampDeltaMillis:varint rssi:i8 level:u8 distanceCm:u16
+ * str        := (length + 1):varint utf8 bytes, length 0 encodes null
+ * optVarint  := (value + 1):varint, 0 encodes null
+ * </pre>
+ * Integers are big-endian, varints are unsigned LEB128. The base timestamp is the first detection in epoch
+ * milliseconds and every delta is relative to the previous detection. Level is the
+ * {@link ProximityLevel} ordinal and distanceCm is the estimated distance in centimeters; 0xFF and 0xFFFF encode null.
+ */
+public class ProximityBinaryDecoder extends AbstractDataBufferDecoder<AttendanceRegistrationRequestDTO> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.attendance.proximity+binary";
+    public static final MimeType MIME_TYPE = MimeType.valueOf(MEDIA_TYPE_VALUE);
+
+    private static final int VERSION = 1;
+    private static final int NULL_LEVEL = 0xFF;
+    private static final int NULL_DISTANCE = 0xFFFF;
+    private static final ProximityLevel[] LEVELS = ProximityLevel.values();
+
+    public ProximityBinaryDecoder() {
+        super(MIME_TYPE);
+    }
+
+    @Override
+    public boolean canDecode(ResolvableType elementType, MimeType mimeType) {
+        return AttendanceRegistrationRequestDTO.class.isAssignableFrom(elementType.toClass())
+                && super.canDecode(elementType, mimeType);
+    }
+
+    @Override
+    public AttendanceRegistrationRequestDTO decode(DataBuffer dataBuffer, ResolvableType targetType,
+                                                   MimeType mimeType, Map<String, Object> hints) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(dataBuffer.readableByteCount());
+            dataBuffer.toByteBuffer(buffer);
+            return read(buffer);
+        } catch (RuntimeException ex) {
+            throw new DecodingException("Malformed binary proximity request: " + ex.getMessage(), ex);
+        } finally {
+            DataBufferUtils.release(dataBuffer);
+        }
+    }
+
+    private AttendanceRegistrationRequestDTO read(ByteBuffer buffer) {
+        int version = Byte.toUnsignedInt(buffer.get());
+        if (version != VERSION) {
+            throw new IllegalArgumentException("unsupported version " + version);
+        }
+
+        AttendanceRegistrationRequestDTO request = new AttendanceRegistrationRequestDTO();
+        request.setToken(readString(buffer));
+        request.setStudentIndex(readString(buffer));
+        request.setDeviceId(readString(buffer));
+        request.setExpectedRoomId(readString(buffer));
+        int duration = readVarint(buffer);
+        request.setVerificationDurationSeconds(duration == 0 ? null : duration - 1);
+
+        int beaconCount = readVarint(buffer);
+        // Every beacon takes at least three bytes, so a bogus count cannot make us allocate a huge table
+        if (beaconCount < 0 || beaconCount > buffer.remaining() / 3) {
+            throw new IllegalArgumentException("beacon count " + beaconCount + " exceeds the payload");
+        }
+        String[][] beacons = new String[beaconCount][];
+        for (int i = 0; i < beaconCount; i++) {
+            beacons[i] = new String[] {readString(buffer), readString(buffer), readString(buffer)};
+        }
+
+        int sampleCount = readVarint(buffer);
+        if (sampleCount == 0) {
+            return request;
+        }
+        // Every sample takes at least six bytes, so a bogus count cannot make us allocate a huge list
+        if (sampleCount > buffer.remaining() / 6) {
+            throw new IllegalArgumentException("sample count " + sampleCount + " exceeds the payload");
+        }
+
+        List<ProximityDetectionDTO> detections = new ArrayList<>(sampleCount);
+        long timestamp = buffer.getLong();
+        for (int i = 0; i < sampleCount; i++) {
+            String[] beacon = beacons[readVarint(buffer)];
+            timestamp += readVarint(buffer);
+            int rssi = buffer.get();
+            int level = Byte.toUnsignedInt(buffer.get());
+            int distance = Short.toUnsignedInt(buffer.getShort());
+
+            ProximityDetectionDTO detection = new ProximityDetectionDTO();
+            detection.setStudentIndex(request.getStudentIndex());
+            detection.setSessionToken(request.getToken());
+            detection.setBeaconDeviceId(beacon[0]);
+            detection.setDetectedRoomId(beacon[1]);
+            detection.setBeaconType(beacon[2]);
+            detection.setRssi(rssi);
+            detection.setProximityLevel(level == NULL_LEVEL ? null : LEVELS[level].name());
+            detection.setEstimatedDistance(distance == NULL_DISTANCE ? null : distance / 100.0);
+            // Local server time, like the timestamps of JSON uploads and everything else the server stores
+            detection.setDetectionTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault()));
+            detections.add(detection);
+        }
+        request.setProximityDetections(detections);
+        return request;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = readVarint(buffer);
+        if (length == 0) {
+            return null;
+        }
+        // Checked before allocating, so a bogus length cannot make us allocate a huge array
+        if (length < 0 || length - 1 > buffer.remaining()) {
+            throw new IllegalArgumentException("string length " + (length - 1) + " exceeds the payload");
+        }
+        byte[] bytes = new byte[length - 1];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                if (value < 0) {
+                    throw new IllegalArgumentException("varint out of range");
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("varint too long");
+    }
+}
@@ -0,0 +1,64 @@
+package mk.ukim.finki.attendanceappserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "app.admission-control")
+@Getter
+@Setter
+public class AdmissionControlProperties {
+
+    /**
+     * Whether the adaptive concurrency limiter guards the attendance endpoints.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Request paths (relative to the base path) which are admission controlled.
+     */
+    private List<String> paths = List.of("/attendance/register/**", "/attendance/confirm");
+
+    /**
+     * Concurrency limit used until enough latency samples are collected.
+     * Defaults to the R2DBC pool max-size.
+     */
+    private int initialLimit = 20;
+
+    /**
+     * Lower and upper bounds of the adaptive concurrency limit.
+     */
+    private int minLimit = 4;
+    private int maxLimit = 200;
+
+    /**
+     * Maximum number of requests waiting for a permit; further requests are rejected immediately.
+     */
+    private int maxQueueSize = 500;
+
+    /**
+     * Maximum time in milliseconds a request waits for a permit before it is rejected.
+     */
+    private long maxQueueWaitMillis = 2000;
+
+    /**
+     * How much the recent latency may exceed the long-term latency before the limit is reduced.
+     */
+    private double rttTolerance = 1.5;
+
+    /**
+     * Weight of each new limit estimate (0-1); lower values adapt more slowly.
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * Base Retry-After value in seconds for rejected requests, and the random jitter added on top of it.
+     */
+    private int retryAfterSeconds = 1;
+    private int retryAfterJitterSeconds = 4;
+
+}
@@ -0,0 +1,20 @@
+package mk.ukim.finki.attendanceappserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.attendance.batch")
+@Getter
+@Setter
+public class AttendanceBatchProperties {
+
+    /**
+     * Maximum age in minutes of a queued scan in a batch upload, measured from the upload.
+     * Older scans are rejected, so a backdated scan time cannot revive a long-expired token.
+     */
+    private int maxOfflineAgeMinutes = 120;
+
+}
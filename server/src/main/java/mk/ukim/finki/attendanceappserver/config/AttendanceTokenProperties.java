@@ -0,0 +1,47 @@
+package mk.ukim.finki.attendanceappserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.attendance.token")
+@Getter
+@Setter
+public class AttendanceTokenProperties {
+
+    /**
+     * Whether presentation pages show HMAC-signed payloads of the class session and a time window, rotating
+     * every window, instead of the random UUID stored with the session. Signed tokens are validated without
+     * reading the database. QR codes returned by /qr/generateQR are not refreshed by clients and keep using
+     * the stored token. Disabled by default.
+     */
+    private boolean signed = false;
+
+    /**
+     * Base64-encoded HMAC-SHA256 key, shared by every instance issuing or validating tokens.
+     * When empty, a random key is generated at startup and tokens are only valid on this instance.
+     */
+    private String secret;
+
+    /**
+     * Length in seconds of the time window a signed token belongs to; the presentation page rotates
+     * the QR code at this interval.
+     */
+    private int rotationSeconds = 30;
+
+    /**
+     * Number of windows a signed token is still accepted after its own, so a scan just before
+     * a rotation is not rejected.
+     */
+    private int graceWindows = 1;
+
+    /**
+     * Number of windows after its expiration a signed token is still accepted from a queued scan in a batch upload.
+     * 0 only accepts tokens which are still valid at the upload, so screenshots of the rotating QR code go stale
+     * just as quickly offline; raise it to let clients catch up on signed tokens after an outage.
+     */
+    private int maxOfflineWindows = 0;
+
+}
@@ -0,0 +1,36 @@
+package mk.ukim.finki.attendanceappserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.attendance.write-behind")
+@Getter
+@Setter
+public class AttendanceWriteBehindProperties {
+
+    /**
+     * Whether validated registrations are buffered and persisted in batches instead of one statement per request.
+     * Disabled by default.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Maximum number of registrations waiting in the in-process buffer.
+     * When the buffer is full, registrations are persisted directly.
+     */
+    private int bufferCapacity = 4096;
+
+    /**
+     * Maximum number of registrations persisted in a single batched statement.
+     */
+    private int maxBatchSize = 250;
+
+    /**
+     * Maximum time in milliseconds a registration waits in the buffer before its batch is flushed.
+     */
+    private long flushIntervalMillis = 10;
+
+}
@@ -0,0 +1,36 @@
+package mk.ukim.finki.attendanceappserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.proximity.calibration")
+@Getter
+@Setter
+public class ProximityCalibrationProperties {
+
+    /**
+     * Whether per room thresholds are computed nightly and used for proximity verification.
+     * Rooms without a calibration keep using the thresholds of ProximityConstants.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Number of days of raw detections a calibration is computed from.
+     * Should stay below the raw detection retention, after which detections are downsampled.
+     */
+    private int lookbackDays = 60;
+
+    /**
+     * Minimum number of detections a room needs before it is calibrated.
+     */
+    private int minSamples = 500;
+
+    /**
+     * Number of rooms calibrated concurrently.
+     */
+    private int parallelism = 4;
+
+}
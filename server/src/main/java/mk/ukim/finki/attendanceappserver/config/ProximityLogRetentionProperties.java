@@ -0,0 +1,36 @@
+package mk.ukim.finki.attendanceappserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.proximity.retention")
+@Getter
+@Setter
+public class ProximityLogRetentionProperties {
+
+    /**
+     * Whether the nightly partition maintenance of proximity_verification_log runs.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Age in days after which the raw detections of a whole month are downsampled into proximity_detection_summary.
+     * Verification summaries are kept.
+     */
+    private int rawDetectionRetentionDays = 90;
+
+    /**
+     * Age in months after which monthly partitions are dropped entirely.
+     * Room analytics are kept in the rollup tables.
+     */
+    private int retentionMonths = 24;
+
+    /**
+     * Number of future monthly partitions kept ready ahead of the current month.
+     */
+    private int partitionsAhead = 3;
+
+}
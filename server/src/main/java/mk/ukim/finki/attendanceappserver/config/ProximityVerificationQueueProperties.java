@@ -0,0 +1,36 @@
+package mk.ukim.finki.attendanceappserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.proximity.async")
+@Getter
+@Setter
+public class ProximityVerificationQueueProperties {
+
+    /**
+     * Whether proximity verifications sent with an attendance registration are processed in the background,
+     * so the registration returns as soon as the attendance record is stored. Disabled by default.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Maximum number of verifications waiting to be processed.
+     * When the queue is full, the verification is processed as part of the registration request.
+     */
+    private int queueCapacity = 2048;
+
+    /**
+     * Maximum number of verifications processed concurrently by the background workers.
+     */
+    private int workerConcurrency = 4;
+
+    /**
+     * Maximum time in seconds to keep draining queued verifications on shutdown.
+     */
+    private long shutdownTimeoutSeconds = 10;
+
+}
@@ -0,0 +1,35 @@
+package mk.ukim.finki.attendanceappserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.qr.render")
+@Getter
+@Setter
+public class QRRenderProperties {
+
+    /**
+     * Number of threads rendering QR codes, off the Netty event loop.
+     * Defaults to the number of available processors.
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Maximum number of renders waiting for a thread. Further renders fail instead of queueing without bound.
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * Maximum number of rendered images kept per token and size.
+     */
+    private int cacheSize = 500;
+
+    /**
+     * Minutes a rendered image is kept, matching the lifetime of an attendance token.
+     */
+    private int cacheExpireMinutes = 15;
+
+}
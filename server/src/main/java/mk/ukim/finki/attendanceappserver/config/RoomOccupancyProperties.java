@@ -0,0 +1,34 @@
+package mk.ukim.finki.attendanceappserver.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.rooms.occupancy")
+@Getter
+@Setter
+public class RoomOccupancyProperties {
+
+    /**
+     * Length of the sliding window the occupancy of a room is estimated over.
+     */
+    private int windowMinutes = 15;
+
+    /**
+     * Granularity of the sliding window; each bucket holds one distinct-count sketch per room.
+     */
+    private int bucketMinutes = 1;
+
+    /**
+     * Maximum number of rooms tracked at once, bounding memory when clients report unknown rooms.
+     */
+    private int maxRooms = 512;
+
+    /**
+     * Interval at which the occupancy stream publishes the estimates of all rooms.
+     */
+    private int streamIntervalSeconds = 10;
+
+}
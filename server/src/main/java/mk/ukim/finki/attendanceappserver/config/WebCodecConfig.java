@@ -0,0 +1,16 @@
+package mk.ukim.finki.attendanceappserver.config;
+
+import mk.ukim.finki.attendanceappserver.codecs.ProximityBinaryDecoder;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+@Configuration
+public class WebCodecConfig implements WebFluxConfigurer {
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        // Compact alternative to JSON for attendance registrations carrying proximity detections
+        configurer.customCodecs().register(new ProximityBinaryDecoder());
+    }
+}
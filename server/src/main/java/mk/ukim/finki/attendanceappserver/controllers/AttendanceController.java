@@ -1,16 +1,23 @@
 package mk.ukim.finki.attendanceappserver.controllers;
 
 import lombok.AllArgsConstructor;
+import mk.ukim.finki.attendanceappserver.domain.models.ProximityVerificationLog;
 import mk.ukim.finki.attendanceappserver.dto.*;
 import mk.ukim.finki.attendanceappserver.dto.db.CustomStudentAttendance;
 import mk.ukim.finki.attendanceappserver.dto.generic.APIResponse;
 import mk.ukim.finki.attendanceappserver.services.AttendanceService;
 import mk.ukim.finki.attendanceappserver.services.ProximityVerificationService;
+import mk.ukim.finki.attendanceappserver.services.cache.IdempotencyStore;
+import mk.ukim.finki.attendanceappserver.services.shared.AttendanceEventPublisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -20,22 +27,41 @@ import java.util.List;
 public class AttendanceController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AttendanceController.class);
+    private static final Duration STREAM_HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+    private static final int STREAM_EVENT_BUFFER = 1024;
 
     private final AttendanceService attendanceService;
     private final ProximityVerificationService proximityVerificationService;
+    private final IdempotencyStore idempotencyStore;
+    private final AttendanceEventPublisher attendanceEventPublisher;
 
     @PostMapping("/register")
-    public Mono<APIResponse<Integer>> registerAttendance(@RequestBody AttendanceRegistrationRequestDTO dto) {
+    public Mono<APIResponse<Integer>> registerAttendance(
+            @RequestBody AttendanceRegistrationRequestDTO dto,
+            @RequestHeader(value = IdempotencyStore.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         LOGGER.info("Request for registering attendance for student with ID [{}].", dto.getStudentIndex());
-        return attendanceService.registerAttendance(dto)
+        return idempotencyStore.execute("register:" + dto.getStudentIndex(), idempotencyKey,
+                () -> attendanceService.registerAttendance(dto)
+                        .map(APIResponse::success));
+    }
+
+    @PostMapping("/register/batch")
+    public Mono<APIResponse<List<AttendanceBatchRegistrationResultDTO>>> registerAttendanceBatch(
+            @RequestBody AttendanceBatchRegistrationRequestDTO dto) {
+        LOGGER.info("Request for registering a batch of {} attendance records.",
+                dto.getRegistrations() == null ? 0 : dto.getRegistrations().size());
+        return attendanceService.registerAttendanceBatch(dto.getRegistrations())
                 .map(APIResponse::success);
     }
 
     @PostMapping("/confirm")
-    public Mono<APIResponse<Void>> confirmAttendance(@RequestBody AttendanceConfirmationRequestDTO dto) {
+    public Mono<APIResponse<Void>> confirmAttendance(
+            @RequestBody AttendanceConfirmationRequestDTO dto,
+            @RequestHeader(value = IdempotencyStore.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         LOGGER.info("Request for confirming attendance for attendance ID [{}].", dto.getAttendanceId());
-        return attendanceService.confirmAttendance(dto)
-                .then(Mono.just(APIResponse.<Void>success(null)));
+        return idempotencyStore.execute("confirm:" + dto.getAttendanceId(), idempotencyKey,
+                () -> attendanceService.confirmAttendance(dto)
+                        .then(Mono.just(APIResponse.<Void>success(null))));
     }
 
     @GetMapping(value = "/lecture/{lectureId}")
@@ -47,6 +73,44 @@ public class AttendanceController {
                 .map(APIResponse::success);
     }
 
+    @GetMapping(value = "/lecture/{lectureId}/counters")
+    public Mono<APIResponse<AttendanceCountersDTO>> getAttendanceCountersByLectureId(@PathVariable int lectureId) {
+        LOGGER.debug("Request for retrieving attendance counters for lecture with ID [{}]", lectureId);
+        return attendanceService.getAttendanceCounters(lectureId)
+                .map(APIResponse::success);
+    }
+
+    /**
+     * Live attendance of a lecture: a "snapshot" event with the current records,
+     * followed by an "attendance" event for every status change.
+     * A SESSION_RESET event means the client should discard its state and reload the snapshot.
+     */
+    @GetMapping(value = "/lecture/{lectureId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<?>> streamStudentAttendancesByLectureId(@PathVariable int lectureId) {
+        LOGGER.info("Request for streaming student attendance for lecture with ID [{}]", lectureId);
+
+        Mono<List<CustomStudentAttendance>> snapshot = attendanceService.getStudentAttendancesByProfessorClassSessionId(lectureId)
+                .collectList()
+                .cache();
+
+        // Subscribe to the deltas before loading the snapshot so no change in between is lost,
+        // but hold them back until the snapshot has been sent
+        Flux<ServerSentEvent<?>> deltas = attendanceEventPublisher.events(lectureId)
+                .onBackpressureBuffer(STREAM_EVENT_BUFFER)
+                .delayUntil(event -> snapshot)
+                .map(event -> ServerSentEvent.builder(event).event("attendance").build());
+
+        Flux<ServerSentEvent<?>> snapshotEvent = snapshot
+                .map(attendances -> ServerSentEvent.builder(attendances).event("snapshot").build())
+                .flux();
+
+        Flux<ServerSentEvent<?>> heartbeat = Flux.interval(STREAM_HEARTBEAT_INTERVAL)
+                .map(tick -> ServerSentEvent.builder().comment("heartbeat").build());
+
+        return Flux.merge(deltas, snapshotEvent, heartbeat)
+                .doFinally(signal -> LOGGER.debug("Attendance stream for lecture with ID [{}] closed ({})", lectureId, signal));
+    }
+
     @GetMapping(value = "/{studentAttendanceId}")
     public Mono<APIResponse<CustomStudentAttendance>> getStudentAttendance(@PathVariable int studentAttendanceId) {
         LOGGER.info("Request for retrieving student attendance with ID [{}]",
@@ -63,6 +127,20 @@ public class AttendanceController {
                 .map(APIResponse::success);
     }
 
+    /**
+     * Proximity verification with detections streamed as newline-delimited JSON while the device scans.
+     * The response is sent as soon as the outcome is conclusive, which may be before the device stops sending.
+     */
+    @PostMapping(value = "/{studentAttendanceId}/proximity/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<APIResponse<ProximityVerificationResponseDTO>> streamProximityVerification(
+            @PathVariable int studentAttendanceId,
+            @RequestParam String expectedRoomId,
+            @RequestBody Flux<ProximityDetectionDTO> detections) {
+        LOGGER.info("Request for streamed proximity verification for attendance with ID [{}]", studentAttendanceId);
+        return proximityVerificationService.processProximityVerificationStream(studentAttendanceId, expectedRoomId, detections)
+                .map(APIResponse::success);
+    }
+
     /**
      * Get proximity analytics for a specific room
      * Useful for professors to analyze classroom beacon effectiveness
@@ -78,4 +156,32 @@ public class AttendanceController {
         return proximityVerificationService.getRoomProximityAnalytics(roomId, fromDate)
                 .map(APIResponse::success);
     }
+
+    @GetMapping("/proximity-analytics/{roomId}/hourly")
+    public Mono<APIResponse<RoomProximityAnalyticsDTO>> getHourlyRoomProximityAnalytics(
+            @PathVariable String roomId,
+            @RequestParam(required = false, defaultValue = "24") Integer hoursBack) {
+
+        LOGGER.info("Request for hourly proximity analytics for room [{}] for the past {} hours", roomId, hoursBack);
+        LocalDateTime fromDate = LocalDateTime.now().minusHours(hoursBack);
+
+        return proximityVerificationService.getHourlyRoomProximityAnalytics(roomId, fromDate)
+                .map(APIResponse::success);
+    }
+
+    /**
+     * Raw proximity verification logs of a room, newest first.
+     * Pass the lowest ID of a page as beforeId to get the next one.
+     */
+    @GetMapping("/proximity-analytics/{roomId}/logs")
+    public Mono<APIResponse<List<ProximityVerificationLog>>> getRoomProximityLogs(
+            @PathVariable String roomId,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(required = false, defaultValue = "100") Integer limit) {
+
+        LOGGER.info("Request for proximity logs for room [{}] before ID [{}]", roomId, beforeId);
+        return proximityVerificationService.getRoomProximityLogs(roomId, beforeId, limit)
+                .collectList()
+                .map(APIResponse::success);
+    }
 }
@@ -1,14 +1,16 @@
 package mk.ukim.finki.attendanceappserver.controllers;
 
 import lombok.AllArgsConstructor;
-import mk.ukim.finki.attendanceappserver.dto.GenerateQRCodeRequestDTO;
+import mk.ukim.finki.attendanceappserver.domain.enums.QRCodeFormat;
 import mk.ukim.finki.attendanceappserver.dto.PresentationSessionDTO;
 import mk.ukim.finki.attendanceappserver.dto.generic.APIResponse;
 import mk.ukim.finki.attendanceappserver.services.PresentationCacheService;
+import mk.ukim.finki.attendanceappserver.services.PresentationCacheService.Presentation;
 import mk.ukim.finki.attendanceappserver.services.QRCodeGeneratorService;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
+import java.util.Objects;
 import java.util.UUID;
 
 @RestController
@@ -19,16 +21,24 @@ public class PresentationController {
     private final PresentationCacheService presentationCacheService;
     private final QRCodeGeneratorService qrCodeGeneratorService;
 
+    /**
+     * Creates a presentation link for a class session. The QR code in the response is a PNG unless
+     * another format (png, svg or matrix) and size are requested.
+     */
     @PostMapping("/{sessionId}")
-    public Mono<APIResponse<PresentationSessionDTO>> createPresentationSession(@PathVariable Integer sessionId) {
+    public Mono<APIResponse<PresentationSessionDTO>> createPresentationSession(@PathVariable Integer sessionId,
+                                                                               @RequestParam(required = false) String format,
+                                                                               @RequestParam(required = false) Integer size) {
         String shortKey = UUID.randomUUID().toString().substring(0, 8);
-        GenerateQRCodeRequestDTO dto = GenerateQRCodeRequestDTO.builder()
-                .professorClassSessionId(sessionId)
-                .build();
-        return qrCodeGeneratorService.generateQRCode(dto)
+        QRCodeFormat qrCodeFormat = Objects.requireNonNullElse(QRCodeFormat.fromString(format), QRCodeFormat.PNG);
+        int qrCodeSize = Objects.requireNonNullElse(size, QRCodeGeneratorService.DEFAULT_QR_CODE_SIZE);
+
+        return qrCodeGeneratorService.issueAttendanceToken(sessionId)
+                .doOnNext(token -> presentationCacheService.put(shortKey, new Presentation(sessionId, token)))
+                .flatMap(token -> qrCodeGeneratorService.renderQRCode(token, qrCodeFormat, qrCodeSize))
                 .map(qrBytes -> {
-                    presentationCacheService.put(shortKey, qrBytes);
-                    PresentationSessionDTO responseDto = new PresentationSessionDTO(shortKey, qrBytes);
+                    PresentationSessionDTO responseDto = new PresentationSessionDTO(shortKey, qrBytes,
+                            qrCodeFormat.getMediaType().toString());
                     return APIResponse.success(responseDto);
                 });
     }
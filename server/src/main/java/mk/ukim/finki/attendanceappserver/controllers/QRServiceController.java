@@ -1,19 +1,23 @@
 package mk.ukim.finki.attendanceappserver.controllers;
 
 import lombok.AllArgsConstructor;
+import mk.ukim.finki.attendanceappserver.domain.enums.QRCodeFormat;
 import mk.ukim.finki.attendanceappserver.dto.GenerateQRCodeRequestDTO;
 import mk.ukim.finki.attendanceappserver.services.QRCodeGeneratorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Mono;
 
+import java.util.Objects;
+
 @RestController
 @RequestMapping("/qr")
 @AllArgsConstructor
@@ -23,13 +27,25 @@ public class QRServiceController {
 
     private QRCodeGeneratorService qrCodeGeneratorService;
 
+    /**
+     * Generates the attendance QR code of a class session as a PNG (image/png), an SVG (image/svg+xml)
+     * or a raw module matrix (application/vnd.attendance.qr-matrix+json).
+     * The format query parameter wins over the Accept header; size only applies to PNG.
+     */
     @PostMapping("/generateQR")
-    public Mono<ResponseEntity<byte[]>> generateQRCode(@RequestBody GenerateQRCodeRequestDTO dto) {
-        return qrCodeGeneratorService.generateQRCode(dto)
+    public Mono<ResponseEntity<byte[]>> generateQRCode(@RequestBody GenerateQRCodeRequestDTO dto,
+                                                       @RequestParam(required = false) String format,
+                                                       @RequestParam(required = false) Integer size,
+                                                       @RequestHeader HttpHeaders requestHeaders) {
+        QRCodeFormat qrCodeFormat = QRCodeFormat.resolve(format, requestHeaders.getAccept());
+        int qrCodeSize = Objects.requireNonNullElse(size, QRCodeGeneratorService.DEFAULT_QR_CODE_SIZE);
+
+        return qrCodeGeneratorService.generateQRCode(dto, qrCodeFormat, qrCodeSize)
                 .map(qrCodeBytes -> {
                     HttpHeaders headers = new HttpHeaders();
-                    headers.setContentType(MediaType.IMAGE_PNG);
-                    LOGGER.info("QR code for attendance verification has been generated.");
+                    headers.setContentType(qrCodeFormat.getMediaType());
+                    headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                    LOGGER.info("QR code for attendance verification has been generated as {}.", qrCodeFormat);
                     return ResponseEntity.ok().headers(headers).body(qrCodeBytes);
                 })
                 .onErrorResume(e -> {
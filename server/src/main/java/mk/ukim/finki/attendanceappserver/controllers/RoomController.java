@@ -3,10 +3,14 @@ package mk.ukim.finki.attendanceappserver.controllers;
 import lombok.AllArgsConstructor;
 import mk.ukim.finki.attendanceappserver.dto.generic.APIResponse;
 import mk.ukim.finki.attendanceappserver.domain.models.Room;
+import mk.ukim.finki.attendanceappserver.dto.RoomOccupancyDTO;
 import mk.ukim.finki.attendanceappserver.services.RoomService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -41,4 +45,30 @@ public class RoomController {
         return roomService.getRoomByLocationDescriptionLike(locationDescription)
                 .map(APIResponse::success);
     }
+
+    @GetMapping(value = "/occupancy")
+    public Mono<APIResponse<List<RoomOccupancyDTO>>> getRoomOccupancies() {
+        LOGGER.info("Request for retrieving the live occupancy of all rooms");
+        return roomService.getRoomOccupancies()
+                .collectList()
+                .map(APIResponse::success);
+    }
+
+    /**
+     * Live occupancy of all rooms: an "occupancy" event with the estimates of every active room,
+     * repeated at a fixed interval
+     */
+    @GetMapping(value = "/occupancy/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<List<RoomOccupancyDTO>>> streamRoomOccupancies() {
+        LOGGER.info("Request for streaming the live occupancy of all rooms");
+        return roomService.streamRoomOccupancies()
+                .map(occupancies -> ServerSentEvent.builder(occupancies).event("occupancy").build());
+    }
+
+    @GetMapping(value = "/{name}/occupancy")
+    public Mono<APIResponse<RoomOccupancyDTO>> getRoomOccupancy(@PathVariable String name) {
+        LOGGER.info("Request for retrieving the live occupancy of room [{}]", name);
+        return roomService.getRoomOccupancy(name)
+                .map(APIResponse::success);
+    }
 }
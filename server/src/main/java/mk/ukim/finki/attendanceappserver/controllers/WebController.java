@@ -1,36 +1,68 @@
 package mk.ukim.finki.attendanceappserver.controllers;
 
 import lombok.AllArgsConstructor;
+import mk.ukim.finki.attendanceappserver.domain.enums.QRCodeFormat;
 import mk.ukim.finki.attendanceappserver.services.PresentationCacheService;
+import mk.ukim.finki.attendanceappserver.services.QRCodeGeneratorService;
+import mk.ukim.finki.attendanceappserver.services.shared.PresentationFrameBroadcaster;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.ResponseBody;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Base64;
-import java.util.Optional;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 
 @Controller
 @AllArgsConstructor
 public class WebController {
 
+    private static final Duration STREAM_HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+
     private final PresentationCacheService presentationCacheService;
+    private final QRCodeGeneratorService qrCodeGeneratorService;
+    private final PresentationFrameBroadcaster presentationFrameBroadcaster;
 
     @GetMapping(value = "/p/{shortKey}", produces = MediaType.TEXT_HTML_VALUE)
     @ResponseBody
     public Mono<ResponseEntity<String>> getPresentationPage(@PathVariable String shortKey) {
-        return Mono.just(Optional.ofNullable(presentationCacheService.get(shortKey)))
-                .map(qrBytes -> {
-                    if (qrBytes.isPresent()) {
-                        String base64Image = Base64.getEncoder().encodeToString(qrBytes.get());
-                        String html = "<html><body style='margin:0; background:#f0f0f0; display:flex; align-items:center; justify-content:center;'><img src='data:image/png;base64," + base64Image + "'/></body></html>";
-                        return ResponseEntity.ok(html);
-                    } else {
-                        return ResponseEntity.notFound().build();
-                    }
-                });
+        // The QR code is inlined as SVG, so it stays sharp at any projector resolution
+        return Mono.justOrEmpty(presentationCacheService.get(shortKey))
+                .map(presentation -> qrCodeGeneratorService.getPresentedToken(presentation.professorClassSessionId(), presentation.token()))
+                .flatMap(token -> qrCodeGeneratorService.renderQRCode(token, QRCodeFormat.SVG, 0))
+                .map(svg -> {
+                    // New frames are pushed over the stream below; EventSource reconnects by itself after a drop
+                    String script = "<script>new EventSource(location.pathname.replace(/\\/$/, '') + '/stream')"
+                            + ".addEventListener('frame', e => document.getElementById('qr').innerHTML = JSON.parse(e.data).svg);</script>";
+                    String html = "<html><head></head><body style='margin:0; background:#f0f0f0; display:flex; align-items:center; justify-content:center; height:100vh;'>"
+                            + "<div id='qr' style='width:90vmin; height:90vmin;'>" + new String(svg, StandardCharsets.UTF_8) + "</div>"
+                            + script + "</body></html>";
+                    return ResponseEntity.ok(html);
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Streams the QR code frames of a presentation page as server-sent events: a "frame" event with the current
+     * code, then one whenever the token rotates. Frames are rendered once per session and shared by all viewers.
+     */
+    @GetMapping(value = "/p/{shortKey}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public Mono<ResponseEntity<Flux<ServerSentEvent<?>>>> streamPresentationFrames(@PathVariable String shortKey) {
+        return Mono.justOrEmpty(presentationCacheService.get(shortKey))
+                .map(presentation -> {
+                    Flux<ServerSentEvent<?>> frames = presentationFrameBroadcaster
+                            .frames(presentation.professorClassSessionId(), presentation.token())
+                            .map(frame -> ServerSentEvent.builder(frame).event("frame").build());
+                    Flux<ServerSentEvent<?>> heartbeat = Flux.interval(STREAM_HEARTBEAT_INTERVAL)
+                            .map(tick -> ServerSentEvent.builder().comment("heartbeat").build());
+                    return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(Flux.merge(frames, heartbeat));
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build());
     }
 }
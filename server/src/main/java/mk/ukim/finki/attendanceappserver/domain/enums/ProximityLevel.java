@@ -8,5 +8,24 @@ public enum ProximityLevel {
     NEAR,           // < 2 meters (RSSI > -45)
     MEDIUM,         // 2-15 meters (RSSI > -65)
     FAR,            // 15-30 meters (RSSI > -80)
-    OUT_OF_RANGE    // > 30 meters (RSSI <= -80)
+    OUT_OF_RANGE;   // > 30 meters (RSSI <= -80)
+
+    /**
+     * Parses a proximity level reported by the mobile app without throwing
+     *
+     * @param value The proximity level name
+     * @return The proximity level, or null when the value is missing or unknown
+     */
+    public static ProximityLevel fromString(String value) {
+        if (value == null) {
+            return null;
+        }
+        return switch (value) {
+            case "NEAR" -> NEAR;
+            case "MEDIUM" -> MEDIUM;
+            case "FAR" -> FAR;
+            case "OUT_OF_RANGE" -> OUT_OF_RANGE;
+            default -> null;
+        };
+    }
 }
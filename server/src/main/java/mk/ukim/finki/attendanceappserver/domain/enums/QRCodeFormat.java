@@ -0,0 +1,82 @@
+package mk.ukim.finki.attendanceappserver.domain.enums;
+
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Output formats of an attendance QR code
+ */
+public enum QRCodeFormat {
+    PNG(MediaType.IMAGE_PNG),
+    SVG(MediaType.valueOf("image/svg+xml")),
+    // Raw modules, for clients rendering the code themselves. A vendor type, since clients send
+    // "Accept: application/json" with every request and still expect an image back
+    MATRIX(MediaType.valueOf("application/vnd.attendance.qr-matrix+json"));
+
+    private static final int MAX_ACCEPTED_TYPES = 50;
+
+    private final MediaType mediaType;
+
+    QRCodeFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Parses a format requested as a query parameter without throwing
+     *
+     * @param value The format name, case-insensitive
+     * @return The format, or null when the value is missing or unknown
+     */
+    public static QRCodeFormat fromString(String value) {
+        if (value == null) {
+            return null;
+        }
+        return switch (value.toLowerCase()) {
+            case "png" -> PNG;
+            case "svg" -> SVG;
+            case "matrix", "json" -> MATRIX;
+            default -> null;
+        };
+    }
+
+    /**
+     * Resolves the format of a response: an explicit format parameter wins, then the acceptable media types
+     * by quality and specificity, then PNG. Media types with q=0 are refused and never chosen through a wildcard
+     *
+     * @param format The format query parameter, if any
+     * @param accepted The media types of the Accept header
+     * @return The format to respond with
+     */
+    public static QRCodeFormat resolve(String format, List<MediaType> accepted) {
+        QRCodeFormat requested = fromString(format);
+        if (requested != null) {
+            return requested;
+        }
+
+        List<MediaType> acceptable = new ArrayList<>();
+        List<MediaType> refused = new ArrayList<>();
+        // MimeTypeUtils refuses to sort overly long lists; no real client sends that many types
+        for (MediaType mediaType : accepted.subList(0, Math.min(accepted.size(), MAX_ACCEPTED_TYPES))) {
+            (mediaType.getQualityValue() == 0 ? refused : acceptable).add(mediaType);
+        }
+        // Sorts by quality first, then by specificity, keeping the listed order otherwise
+        MimeTypeUtils.sortBySpecificity(acceptable);
+
+        for (MediaType mediaType : acceptable) {
+            for (QRCodeFormat candidate : values()) {
+                if (mediaType.isCompatibleWith(candidate.mediaType)
+                        && refused.stream().noneMatch(refusedType -> refusedType.includes(candidate.mediaType))) {
+                    return candidate;
+                }
+            }
+        }
+        return PNG;
+    }
+}
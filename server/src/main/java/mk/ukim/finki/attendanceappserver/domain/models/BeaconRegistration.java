@@ -0,0 +1,35 @@
+package mk.ukim.finki.attendanceappserver.domain.models;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+@Data
+@Table("beacon_registry")
+public class BeaconRegistration {
+
+    @Id
+    @Column("beacon_id")
+    private String beaconId;
+
+    @Column("room_id")
+    private String roomId;
+
+    @Column("building")
+    private String building;
+
+    @Column("floor")
+    private Integer floor;
+
+    @Column("tx_power")
+    private Integer txPower;
+
+    @Column("active")
+    private boolean active;
+
+    @Column("updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,18 @@
+package mk.ukim.finki.attendanceappserver.domain.repositories;
+
+import mk.ukim.finki.attendanceappserver.domain.models.BeaconRegistration;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface BeaconRegistryRepository extends R2dbcRepository<BeaconRegistration, String> {
+
+    Flux<BeaconRegistration> findByActiveTrue();
+
+    // Changes whenever a beacon is added, updated or removed; cheap enough to poll
+    @Query("SELECT COUNT(*) || ':' || COALESCE(CAST(MAX(updated_at) AS VARCHAR), '') FROM beacon_registry")
+    Mono<String> findVersion();
+}
@@ -12,6 +12,7 @@ import reactor.util.annotation.NonNull;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collection;
 
 @Repository
 public interface ClassSessionRepository extends R2dbcRepository<mk.ukim.finki.attendanceappserver.domain.models.ProfessorClassSession, Integer> {
@@ -20,6 +21,8 @@ public interface ClassSessionRepository extends R2dbcRepository<mk.ukim.finki.at
 
     Mono<mk.ukim.finki.attendanceappserver.domain.models.ProfessorClassSession> findByAttendanceToken(String attendanceToken);
 
+    Flux<mk.ukim.finki.attendanceappserver.domain.models.ProfessorClassSession> findByAttendanceTokenIn(Collection<String> attendanceTokens);
+
     @Query("""
         SELECT pcs.id as professor_class_session_id, scs.id as scheduled_class_session_id,
                 su.id as subject_id, su.name as subject_name, scs."type", scs.room_name, pcs.date, scs.start_time, scs.end_time
@@ -0,0 +1,130 @@
+package mk.ukim.finki.attendanceappserver.domain.repositories;
+
+import io.r2dbc.spi.Row;
+import lombok.AllArgsConstructor;
+import mk.ukim.finki.attendanceappserver.dto.db.ProximityRoomCalibration;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Versioned per room proximity thresholds, computed from the raw detections of successful verifications
+ */
+@Repository
+@AllArgsConstructor
+public class ProximityCalibrationRepository {
+
+    // Percentiles of the detections of verified students, clamped so a noisy room cannot drift too far from the defaults
+    private static final String CALIBRATE_ROOM = """
+            INSERT INTO proximity_room_calibration (room_id, version, sample_count, near_rssi_threshold,
+                                                    medium_rssi_threshold, far_rssi_threshold, max_distance_threshold)
+            SELECT CAST(:roomId AS VARCHAR), :version, COUNT(*),
+                   LEAST(GREATEST(percentile_disc(0.75) WITHIN GROUP (ORDER BY d.rssi), -60), -35),
+                   LEAST(GREATEST(percentile_disc(0.40) WITHIN GROUP (ORDER BY d.rssi), -80), -50),
+                   LEAST(GREATEST(percentile_disc(0.05) WITHIN GROUP (ORDER BY d.rssi), -95), -70),
+                   LEAST(GREATEST(COALESCE(percentile_cont(0.95) WITHIN GROUP (ORDER BY d.estimated_distance), 30), 10), 50)
+            FROM proximity_verification_log d
+            WHERE d.detected_room_id = :roomId
+              AND d.verification_status = 'ONGOING'
+              AND d.verification_timestamp >= :from
+              AND d.rssi IS NOT NULL
+              AND EXISTS (SELECT 1
+                          FROM proximity_verification_log s
+                          WHERE s.student_attendance_id = d.student_attendance_id
+                            AND s.verification_status IN ('SUCCESS', 'SUCCESS_LOW_CONFIDENCE')
+                            AND s.verification_timestamp >= :from)
+            HAVING COUNT(*) >= :minSamples
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Reserves the version of a new calibration run
+     *
+     * @return A Mono containing the new version
+     */
+    public Mono<Long> nextVersion() {
+        return databaseClient.sql("SELECT nextval('proximity_room_calibration_version_seq') AS version")
+                .map((row, metadata) -> row.get("version", Long.class))
+                .one();
+    }
+
+    /**
+     * Retrieves the rooms with successful verifications since the given time, from the daily rollups
+     *
+     * @param from The start of the calibration window
+     * @return A Flux of room IDs
+     */
+    public Flux<String> findRoomsWithVerifications(LocalDateTime from) {
+        return databaseClient.sql("""
+                        SELECT DISTINCT room_id FROM proximity_room_daily_rollup
+                        WHERE day >= :fromDay AND successful_verifications + low_confidence_verifications > 0
+                        """)
+                .bind("fromDay", from.toLocalDate())
+                .map((row, metadata) -> row.get("room_id", String.class))
+                .all();
+    }
+
+    /**
+     * Computes and stores the thresholds of one room
+     *
+     * @param roomId The ID of the room
+     * @param version The version of the calibration run
+     * @param from The start of the calibration window
+     * @param minSamples The minimum number of detections required
+     * @return A Mono containing true when the room was calibrated, false when it had too few detections
+     */
+    public Mono<Boolean> calibrateRoom(String roomId, long version, LocalDateTime from, int minSamples) {
+        return databaseClient.sql(CALIBRATE_ROOM)
+                .bind("roomId", roomId)
+                .bind("version", version)
+                .bind("from", from)
+                .bind("minSamples", minSamples)
+                .fetch()
+                .rowsUpdated()
+                .map(rows -> rows > 0);
+    }
+
+    /**
+     * Retrieves the latest calibration version of any room
+     *
+     * @return A Mono containing the latest version, or 0 when no room is calibrated
+     */
+    public Mono<Long> findLatestVersion() {
+        return databaseClient.sql("SELECT COALESCE(MAX(version), 0) AS version FROM proximity_room_calibration")
+                .map((row, metadata) -> row.get("version", Long.class))
+                .one();
+    }
+
+    /**
+     * Retrieves the latest calibration of every calibrated room
+     *
+     * @return A Flux of calibrations, one per room
+     */
+    public Flux<ProximityRoomCalibration> findLatestCalibrations() {
+        return databaseClient.sql("""
+                        SELECT DISTINCT ON (room_id) room_id, version, sample_count, near_rssi_threshold,
+                               medium_rssi_threshold, far_rssi_threshold, max_distance_threshold, computed_at
+                        FROM proximity_room_calibration
+                        ORDER BY room_id, version DESC
+                        """)
+                .map((row, metadata) -> toCalibration(row))
+                .all();
+    }
+
+    private static ProximityRoomCalibration toCalibration(Row row) {
+        return ProximityRoomCalibration.builder()
+                .roomId(row.get("room_id", String.class))
+                .version(row.get("version", Long.class))
+                .sampleCount(row.get("sample_count", Integer.class))
+                .nearRssiThreshold(row.get("near_rssi_threshold", Integer.class))
+                .mediumRssiThreshold(row.get("medium_rssi_threshold", Integer.class))
+                .farRssiThreshold(row.get("far_rssi_threshold", Integer.class))
+                .maxDistanceThreshold(row.get("max_distance_threshold", Double.class))
+                .computedAt(row.get("computed_at", LocalDateTime.class))
+                .build();
+    }
+}
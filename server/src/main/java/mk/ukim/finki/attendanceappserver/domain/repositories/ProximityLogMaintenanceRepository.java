@@ -0,0 +1,72 @@
+package mk.ukim.finki.attendanceappserver.domain.repositories;
+
+import lombok.AllArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Partition maintenance of proximity_verification_log through the functions of migration 018
+ */
+@Repository
+@AllArgsConstructor
+public class ProximityLogMaintenanceRepository {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Creates the monthly partition containing the given day, if it does not exist yet
+     *
+     * @param month Any day of the month
+     * @return A Mono that completes when the partition exists
+     */
+    public Mono<Void> createPartition(LocalDate month) {
+        return databaseClient.sql("SELECT create_proximity_log_partition(:month)")
+                .bind("month", month)
+                .then();
+    }
+
+    /**
+     * Downsamples the raw detections of a month and removes them from its partition
+     *
+     * @param month Any day of the month
+     * @return A Mono containing true when the partition was compacted, false when it was already compacted or does not exist
+     */
+    public Mono<Boolean> compactPartition(LocalDate month) {
+        return databaseClient.sql("SELECT compact_proximity_log_partition(:month) AS compacted")
+                .bind("month", month)
+                .map((row, metadata) -> Boolean.TRUE.equals(row.get("compacted", Boolean.class)))
+                .one();
+    }
+
+    /**
+     * Vacuums the partition of a month, making the space of deleted rows reusable and refreshing its statistics.
+     * VACUUM cannot run inside a transaction block, so it is sent as a plain statement instead of from a function
+     *
+     * @param month Any day of the month
+     * @return A Mono that completes when the partition is vacuumed
+     */
+    public Mono<Void> vacuumPartition(LocalDate month) {
+        // The name is built from the date alone, so it is safe to inline; VACUUM does not take bind parameters
+        return databaseClient.sql("VACUUM (ANALYZE) proximity_verification_log_p" + month.format(PARTITION_SUFFIX))
+                .then();
+    }
+
+    /**
+     * Drops every monthly partition ending on or before the given day
+     *
+     * @param before The first day to keep
+     * @return A Mono containing the number of dropped partitions
+     */
+    public Mono<Integer> dropPartitionsBefore(LocalDate before) {
+        return databaseClient.sql("SELECT drop_proximity_log_partitions(:before) AS dropped")
+                .bind("before", before)
+                .map((row, metadata) -> row.get("dropped", Integer.class))
+                .one();
+    }
+}
@@ -0,0 +1,144 @@
+package mk.ukim.finki.attendanceappserver.domain.repositories;
+
+import io.r2dbc.spi.Row;
+import lombok.AllArgsConstructor;
+import mk.ukim.finki.attendanceappserver.domain.enums.ProximityVerificationStatus;
+import mk.ukim.finki.attendanceappserver.dto.db.ProximityRoomRollup;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Per room daily and hourly rollups of proximity verification outcomes, so analytics read O(days) rows
+ * instead of every verification log
+ */
+@Repository
+@AllArgsConstructor
+public class ProximityRollupRepository {
+
+    private static final String RECORD_VERIFICATION = """
+            WITH verification AS (
+                SELECT CAST(:roomId AS VARCHAR) AS room_id,
+                       CAST(:timestamp AS TIMESTAMP) AS verified_at,
+                       CAST(:status AS VARCHAR) AS status,
+                       CAST(:distance AS DOUBLE PRECISION) AS distance
+            ), outcome AS (
+                SELECT room_id,
+                       verified_at,
+                       CASE WHEN status = 'SUCCESS' THEN 1 ELSE 0 END AS successful,
+                       CASE WHEN status = 'SUCCESS_LOW_CONFIDENCE' THEN 1 ELSE 0 END AS low_confidence,
+                       CASE WHEN status IN ('FAILED', 'TIMEOUT', 'OUT_OF_RANGE') THEN 1 ELSE 0 END AS failed,
+                       CASE WHEN status = 'WRONG_ROOM' THEN 1 ELSE 0 END AS wrong_room,
+                       CASE WHEN status = 'SUCCESS' THEN distance END AS success_distance
+                FROM verification
+            ), daily AS (
+                INSERT INTO proximity_room_daily_rollup AS r (room_id, day, total_verifications, successful_verifications,
+                                                              low_confidence_verifications, failed_verifications,
+                                                              wrong_room_verifications, success_distance_sum,
+                                                              success_distance_count)
+                SELECT room_id, CAST(verified_at AS DATE), 1, successful, low_confidence, failed, wrong_room,
+                       COALESCE(success_distance, 0), CASE WHEN success_distance IS NULL THEN 0 ELSE 1 END
+                FROM outcome
+                ON CONFLICT (room_id, day) DO UPDATE
+                SET total_verifications = r.total_verifications + 1,
+                    successful_verifications = r.successful_verifications + EXCLUDED.successful_verifications,
+                    low_confidence_verifications = r.low_confidence_verifications + EXCLUDED.low_confidence_verifications,
+                    failed_verifications = r.failed_verifications + EXCLUDED.failed_verifications,
+                    wrong_room_verifications = r.wrong_room_verifications + EXCLUDED.wrong_room_verifications,
+                    success_distance_sum = r.success_distance_sum + EXCLUDED.success_distance_sum,
+                    success_distance_count = r.success_distance_count + EXCLUDED.success_distance_count
+            )
+            INSERT INTO proximity_room_hourly_rollup AS r (room_id, hour, total_verifications, successful_verifications,
+                                                           low_confidence_verifications, failed_verifications,
+                                                           wrong_room_verifications, success_distance_sum,
+                                                           success_distance_count)
+            SELECT room_id, DATE_TRUNC('hour', verified_at), 1, successful, low_confidence, failed, wrong_room,
+                   COALESCE(success_distance, 0), CASE WHEN success_distance IS NULL THEN 0 ELSE 1 END
+            FROM outcome
+            ON CONFLICT (room_id, hour) DO UPDATE
+            SET total_verifications = r.total_verifications + 1,
+                successful_verifications = r.successful_verifications + EXCLUDED.successful_verifications,
+                low_confidence_verifications = r.low_confidence_verifications + EXCLUDED.low_confidence_verifications,
+                failed_verifications = r.failed_verifications + EXCLUDED.failed_verifications,
+                wrong_room_verifications = r.wrong_room_verifications + EXCLUDED.wrong_room_verifications,
+                success_distance_sum = r.success_distance_sum + EXCLUDED.success_distance_sum,
+                success_distance_count = r.success_distance_count + EXCLUDED.success_distance_count
+            """;
+
+    private static final String ROLLUP_COLUMNS = """
+            total_verifications, successful_verifications, low_confidence_verifications, failed_verifications,
+            wrong_room_verifications,
+            CASE WHEN success_distance_count > 0 THEN success_distance_sum / success_distance_count END AS average_distance
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Adds a finished verification to the daily and hourly rollups of its room in one statement
+     *
+     * @param roomId The room the student was detected in
+     * @param timestamp The time of the verification
+     * @param status The outcome of the verification
+     * @param averageDistance The average distance of the verification, if any
+     * @return A Mono that completes when both rollups are updated
+     */
+    public Mono<Void> recordVerification(String roomId, LocalDateTime timestamp, ProximityVerificationStatus status,
+                                         Double averageDistance) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(RECORD_VERIFICATION)
+                .bind("roomId", roomId)
+                .bind("timestamp", timestamp)
+                .bind("status", status.name());
+        spec = averageDistance == null || averageDistance == Double.MAX_VALUE
+                ? spec.bindNull("distance", Double.class)
+                : spec.bind("distance", averageDistance);
+        return spec.then();
+    }
+
+    /**
+     * Retrieves the daily rollups of a room
+     *
+     * @param roomId The ID of the room
+     * @param fromDay The first day to include
+     * @return A Flux of the room's daily rollups, oldest first
+     */
+    public Flux<ProximityRoomRollup> findDailyRollups(String roomId, LocalDate fromDay) {
+        return databaseClient.sql("SELECT CAST(day AS TIMESTAMP) AS period_start, " + ROLLUP_COLUMNS
+                        + " FROM proximity_room_daily_rollup WHERE room_id = :roomId AND day >= :fromDay ORDER BY day")
+                .bind("roomId", roomId)
+                .bind("fromDay", fromDay)
+                .map((row, metadata) -> toRollup(row))
+                .all();
+    }
+
+    /**
+     * Retrieves the hourly rollups of a room
+     *
+     * @param roomId The ID of the room
+     * @param fromHour The first hour to include
+     * @return A Flux of the room's hourly rollups, oldest first
+     */
+    public Flux<ProximityRoomRollup> findHourlyRollups(String roomId, LocalDateTime fromHour) {
+        return databaseClient.sql("SELECT hour AS period_start, " + ROLLUP_COLUMNS
+                        + " FROM proximity_room_hourly_rollup WHERE room_id = :roomId AND hour >= :fromHour ORDER BY hour")
+                .bind("roomId", roomId)
+                .bind("fromHour", fromHour)
+                .map((row, metadata) -> toRollup(row))
+                .all();
+    }
+
+    private static ProximityRoomRollup toRollup(Row row) {
+        return ProximityRoomRollup.builder()
+                .periodStart(row.get("period_start", LocalDateTime.class))
+                .totalVerifications(row.get("total_verifications", Integer.class))
+                .successfulVerifications(row.get("successful_verifications", Integer.class))
+                .lowConfidenceVerifications(row.get("low_confidence_verifications", Integer.class))
+                .failedVerifications(row.get("failed_verifications", Integer.class))
+                .wrongRoomVerifications(row.get("wrong_room_verifications", Integer.class))
+                .averageDistance(row.get("average_distance", Double.class))
+                .build();
+    }
+}
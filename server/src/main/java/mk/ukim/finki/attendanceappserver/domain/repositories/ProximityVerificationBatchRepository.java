@@ -0,0 +1,101 @@
+package mk.ukim.finki.attendanceappserver.domain.repositories;
+
+import lombok.AllArgsConstructor;
+import mk.ukim.finki.attendanceappserver.domain.models.ProximityVerificationLog;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Multi-row statements for proximity_verification_log, so a whole verification is stored in one round trip
+ * instead of one statement per detection
+ */
+@Repository
+@AllArgsConstructor
+public class ProximityVerificationBatchRepository {
+
+    // 13 bind parameters per row, so at most 13,000 per statement, well below the Postgres limit of 65,535
+    private static final int MAX_ROWS_PER_STATEMENT = 1_000;
+
+    private static final String INSERT_CLAUSE = """
+            INSERT INTO proximity_verification_log (student_attendance_id, student_index, beacon_device_id,
+                                                    detected_room_id, expected_room_id, rssi, proximity_level,
+                                                    estimated_distance, verification_timestamp, verification_status,
+                                                    verification_duration_seconds, beacon_type, session_token)
+            VALUES
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Inserts many proximity verification log entries with multi-row inserts
+     *
+     * @param logEntries The log entries to insert
+     * @return A Mono containing the number of inserted rows
+     */
+    public Mono<Long> insertAll(List<ProximityVerificationLog> logEntries) {
+        List<List<ProximityVerificationLog>> chunks = new ArrayList<>();
+        for (int from = 0; from < logEntries.size(); from += MAX_ROWS_PER_STATEMENT) {
+            chunks.add(logEntries.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, logEntries.size())));
+        }
+
+        return Flux.fromIterable(chunks)
+                .concatMap(this::insertChunk)
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> insertChunk(List<ProximityVerificationLog> chunk) {
+        StringBuilder sql = new StringBuilder(INSERT_CLAUSE);
+        for (int i = 0; i < chunk.size(); i++) {
+            if (i > 0) {
+                sql.append(",\n");
+            }
+            sql.append("(:studentAttendanceId").append(i)
+                    .append(", :studentIndex").append(i)
+                    .append(", :beaconDeviceId").append(i)
+                    .append(", :detectedRoomId").append(i)
+                    .append(", :expectedRoomId").append(i)
+                    .append(", :rssi").append(i)
+                    .append(", :proximityLevel").append(i)
+                    .append(", :estimatedDistance").append(i)
+                    .append(", COALESCE(:verificationTimestamp").append(i).append(", CURRENT_TIMESTAMP)")
+                    .append(", :verificationStatus").append(i)
+                    .append(", :verificationDurationSeconds").append(i)
+                    .append(", :beaconType").append(i)
+                    .append(", :sessionToken").append(i)
+                    .append(')');
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < chunk.size(); i++) {
+            ProximityVerificationLog logEntry = chunk.get(i);
+            spec = bind(spec, "studentAttendanceId" + i, logEntry.getStudentAttendanceId(), Integer.class);
+            spec = bind(spec, "studentIndex" + i, logEntry.getStudentIndex(), String.class);
+            spec = bind(spec, "beaconDeviceId" + i, logEntry.getBeaconDeviceId(), String.class);
+            spec = bind(spec, "detectedRoomId" + i, logEntry.getDetectedRoomId(), String.class);
+            spec = bind(spec, "expectedRoomId" + i, logEntry.getExpectedRoomId(), String.class);
+            spec = bind(spec, "rssi" + i, logEntry.getRssi(), Integer.class);
+            spec = bind(spec, "proximityLevel" + i,
+                    logEntry.getProximityLevel() == null ? null : logEntry.getProximityLevel().name(), String.class);
+            spec = bind(spec, "estimatedDistance" + i, logEntry.getEstimatedDistance(), Double.class);
+            spec = bind(spec, "verificationTimestamp" + i, logEntry.getVerificationTimestamp(), LocalDateTime.class);
+            spec = bind(spec, "verificationStatus" + i,
+                    logEntry.getVerificationStatus() == null ? null : logEntry.getVerificationStatus().name(), String.class);
+            spec = bind(spec, "verificationDurationSeconds" + i, logEntry.getVerificationDurationSeconds(), Integer.class);
+            spec = bind(spec, "beaconType" + i, logEntry.getBeaconType(), String.class);
+            spec = bind(spec, "sessionToken" + i, logEntry.getSessionToken(), String.class);
+        }
+
+        return spec.fetch().rowsUpdated();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, String name,
+                                                          Object value, Class<?> type) {
+        return value == null ? spec.bindNull(name, type) : spec.bind(name, value);
+    }
+}
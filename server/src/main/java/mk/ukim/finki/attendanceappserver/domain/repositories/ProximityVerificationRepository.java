@@ -5,7 +5,6 @@ import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 
@@ -21,12 +20,9 @@ public interface ProximityVerificationRepository extends ReactiveCrudRepository<
     @Query("SELECT * FROM proximity_verification_log WHERE session_token = :sessionToken ORDER BY verification_timestamp DESC")
     Flux<ProximityVerificationLog> findBySessionToken(String sessionToken);
 
-    @Query("SELECT * FROM proximity_verification_log WHERE detected_room_id = :roomId AND verification_timestamp >= :fromDate")
+    @Query("SELECT * FROM proximity_verification_log WHERE detected_room_id = :roomId AND verification_status <> 'ONGOING' AND verification_timestamp >= :fromDate")
     Flux<ProximityVerificationLog> findByRoomIdAndDateRange(String roomId, LocalDateTime fromDate);
 
-    @Query("SELECT COUNT(*) FROM proximity_verification_log WHERE verification_status = 'SUCCESS' AND verification_timestamp >= :fromDate")
-    Mono<Long> countSuccessfulVerificationsFromDate(LocalDateTime fromDate);
-
-    @Query("SELECT AVG(estimated_distance) FROM proximity_verification_log WHERE verification_status = 'SUCCESS' AND detected_room_id = :roomId AND verification_timestamp >= :fromDate")
-    Mono<Double> getAverageDistanceByRoomAndDateRange(String roomId, LocalDateTime fromDate);
+    @Query("SELECT * FROM proximity_verification_log WHERE detected_room_id = :roomId AND id < :beforeId ORDER BY id DESC LIMIT :limit")
+    Flux<ProximityVerificationLog> findByRoomIdBeforeId(String roomId, long beforeId, int limit);
 }
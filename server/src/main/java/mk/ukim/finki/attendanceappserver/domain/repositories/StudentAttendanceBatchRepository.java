@@ -0,0 +1,104 @@
+package mk.ukim.finki.attendanceappserver.domain.repositories;
+
+import lombok.AllArgsConstructor;
+import mk.ukim.finki.attendanceappserver.domain.enums.AttendanceStatus;
+import mk.ukim.finki.attendanceappserver.dto.db.UpsertedAttendance;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multi-row statements for student_attendance which cannot be expressed with a derived or annotated query
+ */
+@Repository
+@AllArgsConstructor
+public class StudentAttendanceBatchRepository {
+
+    // Keeps every statement well below the Postgres bind parameter limit
+    private static final int MAX_ROWS_PER_STATEMENT = 1_000;
+
+    private static final String INSERT_CLAUSE = """
+            INSERT INTO student_attendance (student_student_index, professor_class_session_id, arrival_time, status)
+            VALUES
+            """;
+
+    private static final String ON_CONFLICT_CLAUSE = """
+            ON CONFLICT (student_student_index, professor_class_session_id) DO UPDATE
+            SET arrival_time = EXCLUDED.arrival_time,
+                status = CASE WHEN student_attendance.status IN ('PRESENT', 'ABSENT')
+                              THEN student_attendance.status ELSE 'PENDING_VERIFICATION' END,
+                proximity = CASE WHEN student_attendance.status IN ('PRESENT', 'ABSENT')
+                                 THEN student_attendance.proximity ELSE NULL END
+            RETURNING id, student_student_index, professor_class_session_id, status, (xmax = 0) AS inserted
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Registers many students for class sessions with multi-row upserts, using the same rules as
+     * {@link StudentAttendanceRepository#upsertAttendance}. Duplicate registrations are collapsed to the latest one.
+     *
+     * @param registrations The registrations to persist
+     * @return A Flux with the ID of every persisted attendance record
+     */
+    public Flux<UpsertedAttendance> upsertAll(Collection<AttendanceUpsert> registrations) {
+        Map<String, AttendanceUpsert> distinctRegistrations = new LinkedHashMap<>();
+        for (AttendanceUpsert registration : registrations) {
+            distinctRegistrations.merge(registration.key(), registration,
+                    (existing, candidate) -> candidate.arrivalTime().isAfter(existing.arrivalTime()) ? candidate : existing);
+        }
+
+        List<AttendanceUpsert> rows = new ArrayList<>(distinctRegistrations.values());
+        List<List<AttendanceUpsert>> chunks = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_STATEMENT) {
+            chunks.add(rows.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, rows.size())));
+        }
+
+        return Flux.fromIterable(chunks).concatMap(this::upsertChunk);
+    }
+
+    private Flux<UpsertedAttendance> upsertChunk(List<AttendanceUpsert> chunk) {
+        StringBuilder sql = new StringBuilder(INSERT_CLAUSE);
+        for (int i = 0; i < chunk.size(); i++) {
+            if (i > 0) {
+                sql.append(",\n");
+            }
+            sql.append("(:studentIndex").append(i)
+                    .append(", :professorClassSessionId").append(i)
+                    .append(", :arrivalTime").append(i)
+                    .append(", 'PENDING_VERIFICATION')");
+        }
+        sql.append('\n').append(ON_CONFLICT_CLAUSE);
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < chunk.size(); i++) {
+            AttendanceUpsert registration = chunk.get(i);
+            spec = spec.bind("studentIndex" + i, registration.studentIndex())
+                    .bind("professorClassSessionId" + i, registration.professorClassSessionId())
+                    .bind("arrivalTime" + i, registration.arrivalTime());
+        }
+
+        return spec.map((row, metadata) -> UpsertedAttendance.builder()
+                        .id(row.get("id", Integer.class))
+                        .studentIndex(row.get("student_student_index", String.class))
+                        .professorClassSessionId(row.get("professor_class_session_id", Integer.class))
+                        .status(AttendanceStatus.valueOf(row.get("status", String.class)))
+                        .inserted(row.get("inserted", Boolean.class))
+                        .build())
+                .all();
+    }
+
+    public record AttendanceUpsert(String studentIndex, int professorClassSessionId, LocalDateTime arrivalTime) {
+
+        public String key() {
+            return UpsertedAttendance.key(studentIndex, professorClassSessionId);
+        }
+    }
+}
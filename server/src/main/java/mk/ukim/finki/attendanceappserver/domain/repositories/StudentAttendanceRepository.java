@@ -1,6 +1,9 @@
 package mk.ukim.finki.attendanceappserver.domain.repositories;
 
+import mk.ukim.finki.attendanceappserver.dto.db.AttendanceStatusCounts;
 import mk.ukim.finki.attendanceappserver.dto.db.CustomStudentAttendance;
+import mk.ukim.finki.attendanceappserver.dto.db.RegistrationValidation;
+import mk.ukim.finki.attendanceappserver.dto.db.UpsertedAttendance;
 import mk.ukim.finki.attendanceappserver.domain.models.StudentAttendance;
 
 import org.springframework.data.r2dbc.repository.Query;
@@ -12,6 +15,8 @@ import reactor.core.publisher.Mono;
 import reactor.util.annotation.NonNull;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 
 @Repository
 public interface StudentAttendanceRepository extends R2dbcRepository<StudentAttendance, Integer> {
@@ -71,8 +76,67 @@ public interface StudentAttendanceRepository extends R2dbcRepository<StudentAtte
             """)
     Flux<CustomStudentAttendance> getStudentAttendanceByStudentIndexFromDateToDate(@NonNull String studentIndex, @NonNull LocalDate startDate, @NonNull LocalDate endDate);
 
-    @Query("SELECT COUNT(*) > 0 FROM student_attendance WHERE student_student_index = :studentIndex AND professor_class_session_id = :professorClassSessionId")
-    Mono<Boolean> existsStudentAttendanceByStudentIndexAndProfessorClassSessionId(String studentIndex, int professorClassSessionId);
+    /*
+     Registers (or re-registers) a student for a class session in a single statement.
+     A verified status (PRESENT/ABSENT) is preserved on re-registration; anything else is reset to PENDING_VERIFICATION.
+     */
+    @Query("""
+                INSERT INTO student_attendance (student_student_index, professor_class_session_id, arrival_time, status)
+                VALUES (:studentIndex, :professorClassSessionId, :arrivalTime, 'PENDING_VERIFICATION')
+                ON CONFLICT (student_student_index, professor_class_session_id) DO UPDATE
+                SET arrival_time = EXCLUDED.arrival_time,
+                    status = CASE WHEN student_attendance.status IN ('PRESENT', 'ABSENT')
+                                  THEN student_attendance.status ELSE 'PENDING_VERIFICATION' END,
+                    proximity = CASE WHEN student_attendance.status IN ('PRESENT', 'ABSENT')
+                                     THEN student_attendance.proximity ELSE NULL END
+                RETURNING id, student_student_index AS student_index, professor_class_session_id, status,
+                          (xmax = 0) AS inserted
+            """)
+    Mono<UpsertedAttendance> upsertAttendance(@NonNull String studentIndex, int professorClassSessionId, @NonNull LocalDateTime arrivalTime);
+
+    /*
+     Loads student validity, device approval and the session of the attendance token in one round trip.
+     Always returns exactly one row; the session columns are null when no session has the token.
+     */
+    @Query("""
+                SELECT EXISTS (SELECT 1
+                               FROM student s
+                               INNER JOIN student_semester_enrollment sse ON sse.student_student_index = s.student_index
+                               WHERE s.student_index = :studentIndex AND sse.valid = true) AS student_valid,
+                       COALESCE(sd.device_id = :deviceId, false) AS device_approved,
+                       sd.device_id AS approved_device_id,
+                       pcs.id AS professor_class_session_id,
+                       pcs.token_expiration_time AS token_expiration_time
+                FROM (SELECT 1) AS probe
+                LEFT JOIN LATERAL (SELECT device_id FROM student_device
+                                   WHERE student_student_index = :studentIndex LIMIT 1) sd ON true
+                LEFT JOIN professor_class_session pcs ON pcs.attendance_token = :token
+            """)
+    Mono<RegistrationValidation> validateRegistration(@NonNull String studentIndex, @NonNull String deviceId, @NonNull String token);
+
+    /*
+     Counts the attendance records of the given sessions per status.
+     Low confidence is taken from the latest verification summary of each present record.
+     */
+    @Query("""
+                SELECT sa.professor_class_session_id AS professor_class_session_id,
+                       COUNT(*) AS registered,
+                       COUNT(*) FILTER (WHERE sa.status = 'PENDING_VERIFICATION') AS pending,
+                       COUNT(*) FILTER (WHERE sa.status = 'PRESENT') AS present,
+                       COUNT(*) FILTER (WHERE sa.status = 'ABSENT') AS absent,
+                       COALESCE(ARRAY_AGG(sa.id) FILTER (WHERE sa.status = 'PRESENT'
+                                AND latest.verification_status = 'SUCCESS_LOW_CONFIDENCE'), '{}') AS low_confidence_attendance_ids
+                FROM student_attendance sa
+                LEFT JOIN LATERAL (SELECT pvl.verification_status
+                                   FROM proximity_verification_log pvl
+                                   WHERE pvl.student_attendance_id = sa.id
+                                     AND pvl.verification_status <> 'ONGOING'
+                                   ORDER BY pvl.verification_timestamp DESC
+                                   LIMIT 1) latest ON sa.status = 'PRESENT'
+                WHERE sa.professor_class_session_id IN (:professorClassSessionIds)
+                GROUP BY sa.professor_class_session_id
+            """)
+    Flux<AttendanceStatusCounts> countAttendanceStatusesBySessions(@NonNull Collection<Integer> professorClassSessionIds);
 
     @Query("SELECT * FROM student_attendance WHERE student_student_index = :studentIndex AND professor_class_session_id = :professorClassSessionId")
     Mono<StudentAttendance> findByStudentIndexAndProfessorClassSessionId(String studentIndex, int professorClassSessionId);
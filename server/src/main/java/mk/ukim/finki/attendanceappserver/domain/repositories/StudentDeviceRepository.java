@@ -3,11 +3,15 @@ package mk.ukim.finki.attendanceappserver.domain.repositories;
 import mk.ukim.finki.attendanceappserver.domain.models.StudentDevice;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
 import java.util.UUID;
 
 @Repository
 public interface StudentDeviceRepository extends R2dbcRepository<StudentDevice, UUID> {
     Mono<StudentDevice> findByStudentIndex(String studentIndex);
+
+    Flux<StudentDevice> findByStudentIndexIn(Collection<String> studentIndexes);
 }
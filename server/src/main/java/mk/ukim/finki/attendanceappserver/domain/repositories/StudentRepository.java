@@ -9,6 +9,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigInteger;
+import java.util.Collection;
 
 @Repository
 public interface StudentRepository extends R2dbcRepository<Student, String> {
@@ -23,6 +24,14 @@ public interface StudentRepository extends R2dbcRepository<Student, String> {
     """)
     Mono<BigInteger> checkStudentValidity(@NonNull String studentIndex);
 
+    @Query("""
+        SELECT DISTINCT s.student_index
+        FROM student s
+        INNER JOIN student_semester_enrollment sse ON sse.student_student_index = s.student_index
+        WHERE s.student_index IN (:studentIndexes) AND sse.valid = true
+    """)
+    Flux<String> findValidStudentIndexes(@NonNull Collection<String> studentIndexes);
+
     /*
      Find students which are enrolled in subject (with active semester enrollment) which professor with ID teaches.
      */
@@ -0,0 +1,13 @@
+package mk.ukim.finki.attendanceappserver.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AttendanceBatchRegistrationRequestDTO {
+
+    private List<AttendanceRegistrationRequestDTO> registrations; // Scans queued by the client, e.g. while offline
+}
@@ -0,0 +1,18 @@
+package mk.ukim.finki.attendanceappserver.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AttendanceBatchRegistrationResultDTO {
+
+    private int position; // Position of the registration in the request
+    private String studentIndex;
+    private String token;
+    private boolean success;
+    private Integer attendanceId;
+    private String message; // Reason of the failure, same as the single registration endpoint
+}
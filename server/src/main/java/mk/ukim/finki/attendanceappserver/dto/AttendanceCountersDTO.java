@@ -0,0 +1,15 @@
+package mk.ukim.finki.attendanceappserver.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class AttendanceCountersDTO {
+    private int professorClassSessionId;
+    private long registered;
+    private long pending;
+    private long present;
+    private long absent;
+    private long lowConfidence; // Present, but verified mostly at far range
+}
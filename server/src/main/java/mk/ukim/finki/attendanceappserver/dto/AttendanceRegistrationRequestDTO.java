@@ -3,6 +3,7 @@ package mk.ukim.finki.attendanceappserver.dto;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -15,4 +16,5 @@ public class AttendanceRegistrationRequestDTO {
     private List<ProximityDetectionDTO> proximityDetections;
     private String expectedRoomId;
     private Integer verificationDurationSeconds;
+    private LocalDateTime scannedAt; // When the QR code was scanned; only used for queued scans uploaded in a batch
 }
@@ -0,0 +1,27 @@
+package mk.ukim.finki.attendanceappserver.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+import mk.ukim.finki.attendanceappserver.domain.enums.AttendanceStatus;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AttendanceStatusEventDTO {
+
+    public static final String STATUS_CHANGED = "STATUS_CHANGED";
+    public static final String SESSION_RESET = "SESSION_RESET"; // All statuses of the session were reset, clients should reload
+
+    private String eventType;
+    private int professorClassSessionId;
+    private Integer attendanceId;
+    private String studentIndex;
+    private AttendanceStatus previousStatus; // null when the attendance record was just created
+    private AttendanceStatus status;
+    private String proximity;
+    private String verificationStatus; // Proximity verification outcome behind the change, if any
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,14 @@
+package mk.ukim.finki.attendanceappserver.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class PresentationFrameDTO {
+    private String svg;             // The QR code of the currently valid token, as inline SVG markup
+    private int rotationSeconds;    // Seconds until the next frame; 0 when the token does not rotate
+    private LocalDateTime timestamp;
+}
@@ -12,4 +12,5 @@ import lombok.NoArgsConstructor;
 public class PresentationSessionDTO {
     private String shortKey;
     private byte[] qrCodeBytes;
-}
\ No newline at end of file
+    private String contentType; // Media type of qrCodeBytes: image/png, image/svg+xml or application/vnd.attendance.qr-matrix+json
+}
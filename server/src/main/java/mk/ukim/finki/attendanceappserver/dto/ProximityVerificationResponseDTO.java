@@ -1,5 +1,6 @@
 package mk.ukim.finki.attendanceappserver.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
@@ -20,4 +21,6 @@ public class ProximityVerificationResponseDTO {
     private LocalDateTime verificationEndTime;
     private Integer actualDurationSeconds;
     private String failureReason;
+    @JsonIgnore
+    private String occupiedRoomId; // Room of the first trusted, valid detection; used for room occupancy only
 }
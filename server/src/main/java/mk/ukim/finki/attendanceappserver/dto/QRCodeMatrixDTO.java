@@ -0,0 +1,16 @@
+package mk.ukim.finki.attendanceappserver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class QRCodeMatrixDTO {
+    private int size;           // Modules per side, including the quiet zone
+    private int quietZone;      // Light modules around the code on every side
+    private List<String> rows;  // One string per row, '1' for a dark module and '0' for a light one
+}
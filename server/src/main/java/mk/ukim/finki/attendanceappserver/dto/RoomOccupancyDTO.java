@@ -0,0 +1,15 @@
+package mk.ukim.finki.attendanceappserver.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class RoomOccupancyDTO {
+    private String roomId;
+    private long estimatedDevices; // Approximate distinct students verified in the room within the window
+    private int windowMinutes;
+    private LocalDateTime timestamp;
+}
@@ -2,7 +2,7 @@ package mk.ukim.finki.attendanceappserver.dto;
 
 import lombok.Builder;
 import lombok.Data;
-import mk.ukim.finki.attendanceappserver.domain.models.ProximityVerificationLog;
+import mk.ukim.finki.attendanceappserver.dto.db.ProximityRoomRollup;
 
 import java.util.List;
 
@@ -12,6 +12,9 @@ public class RoomProximityAnalyticsDTO {
     private String roomId;
     private Integer totalVerifications;
     private Integer successfulVerifications;
+    private Integer lowConfidenceVerifications;
+    private Integer failedVerifications;
+    private Integer wrongRoomVerifications;
     private Double averageDistance;
-    private List<ProximityVerificationLog> verificationLogs;
+    private List<ProximityRoomRollup> periods; // Daily or hourly breakdown, oldest first
 }
@@ -0,0 +1,21 @@
+package mk.ukim.finki.attendanceappserver.dto.db;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Attendance counts of a single class session, used to seed and reconcile the live counters
+ */
+@Getter
+@Setter
+public class AttendanceStatusCounts {
+
+    private Integer professorClassSessionId;
+    private Long registered;
+    private Long pending;
+    private Long present;
+    private Long absent;
+
+    // Present records whose latest proximity verification succeeded with low confidence
+    private Integer[] lowConfidenceAttendanceIds;
+}
@@ -0,0 +1,28 @@
+package mk.ukim.finki.attendanceappserver.dto.db;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proximity thresholds of a room computed from its historical detections by one calibration run
+ */
+@Data
+@Builder
+public class ProximityRoomCalibration {
+
+    private String roomId;
+    private Long version;
+    private Integer sampleCount;
+
+    // RSSI > near = NEAR, RSSI > medium = MEDIUM, RSSI > far = FAR, otherwise OUT_OF_RANGE
+    private Integer nearRssiThreshold;
+    private Integer mediumRssiThreshold;
+    private Integer farRssiThreshold;
+
+    // Maximum average distance (in meters) of a successful verification
+    private Double maxDistanceThreshold;
+
+    private LocalDateTime computedAt;
+}
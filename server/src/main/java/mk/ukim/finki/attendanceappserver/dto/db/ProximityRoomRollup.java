@@ -0,0 +1,24 @@
+package mk.ukim.finki.attendanceappserver.dto.db;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Verification outcomes of a room within one day or hour
+ */
+@Data
+@Builder
+public class ProximityRoomRollup {
+
+    private LocalDateTime periodStart;
+    private Integer totalVerifications;
+    private Integer successfulVerifications;
+    private Integer lowConfidenceVerifications;
+    private Integer failedVerifications;
+    private Integer wrongRoomVerifications;
+
+    // Average distance of the successful verifications, null when there were none
+    private Double averageDistance;
+}
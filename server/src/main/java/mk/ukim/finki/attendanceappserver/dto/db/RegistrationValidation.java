@@ -0,0 +1,25 @@
+package mk.ukim.finki.attendanceappserver.dto.db;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Everything needed to validate an attendance registration, loaded with a single query
+ */
+@Getter
+@Setter
+public class RegistrationValidation {
+
+    // Student information
+    private Boolean studentValid;
+
+    // Device information
+    private Boolean deviceApproved;
+    private String approvedDeviceId;
+
+    // Token information (null when no session has the token)
+    private Integer professorClassSessionId;
+    private LocalDateTime tokenExpirationTime;
+}
@@ -0,0 +1,33 @@
+package mk.ukim.finki.attendanceappserver.dto.db;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import mk.ukim.finki.attendanceappserver.domain.enums.AttendanceStatus;
+
+/**
+ * Attendance record returned by the registration upserts
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class UpsertedAttendance {
+
+    private Integer id;
+    private String studentIndex;
+    private Integer professorClassSessionId;
+    private AttendanceStatus status;
+
+    // True when the upsert created the record, false when it re-registered an existing one
+    private Boolean inserted;
+
+    public String key() {
+        return key(studentIndex, professorClassSessionId);
+    }
+
+    public static String key(String studentIndex, int professorClassSessionId) {
+        return professorClassSessionId + ":" + studentIndex;
+    }
+}
@@ -0,0 +1,97 @@
+package mk.ukim.finki.attendanceappserver.filters;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import mk.ukim.finki.attendanceappserver.config.AdmissionControlProperties;
+import mk.ukim.finki.attendanceappserver.filters.GradientConcurrencyLimiter.AdmissionRejectedException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Adaptive admission control for the attendance endpoints which are hit by every student within seconds
+ * of a QR code being shown. Requests above the current concurrency limit wait in a bounded queue with a
+ * deadline; when the queue is full or the deadline passes they are shed with 429 and a jittered Retry-After,
+ * so clients spread their retries instead of all timing out together.
+ * The current limit, in-flight and queued requests and rejection counts are published as metrics.
+ */
+@Slf4j
+@Component
+public class AttendanceAdmissionFilter implements WebFilter {
+
+    private static final String METRIC_PREFIX = "attendance.admission";
+
+    private final AdmissionControlProperties properties;
+    private final GradientConcurrencyLimiter limiter;
+    private final List<PathPattern> patterns;
+
+    public AttendanceAdmissionFilter(AdmissionControlProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.limiter = new GradientConcurrencyLimiter(properties);
+        this.patterns = properties.getPaths().stream()
+                .map(PathPatternParser.defaultInstance::parse)
+                .toList();
+
+        Gauge.builder(METRIC_PREFIX + ".limit", limiter, GradientConcurrencyLimiter::getLimit).register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".inflight", limiter, GradientConcurrencyLimiter::getInFlight).register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".queued", limiter, GradientConcurrencyLimiter::getQueued).register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".rejected", limiter, l -> l.getQueueFullRejections().get())
+                .tag("reason", "queue_full")
+                .register(meterRegistry);
+        FunctionCounter.builder(METRIC_PREFIX + ".rejected", limiter, l -> l.getTimeoutRejections().get())
+                .tag("reason", "queue_timeout")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!properties.isEnabled() || !isAdmissionControlled(exchange)) {
+            return chain.filter(exchange);
+        }
+
+        return limiter.acquire()
+                .flatMap(permit -> chain.filter(exchange)
+                        .doFinally(signal -> permit.release(signal == SignalType.ON_COMPLETE)))
+                .onErrorResume(AdmissionRejectedException.class, rejection -> reject(exchange, rejection));
+    }
+
+    private boolean isAdmissionControlled(ServerWebExchange exchange) {
+        PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+        return patterns.stream().anyMatch(pattern -> pattern.matches(path));
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, AdmissionRejectedException rejection) {
+        int retryAfter = properties.getRetryAfterSeconds()
+                + ThreadLocalRandom.current().nextInt(properties.getRetryAfterJitterSeconds() + 1);
+        log.debug("Shedding request to [{}] ({}), limit [{}], retry after {}s",
+                exchange.getRequest().getPath(), rejection.getMessage(), limiter.getLimit(), retryAfter);
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+        // Same shape as APIResponse.error
+        String body = "{\"success\":false,\"message\":\"Too many attendance requests, retry in " + retryAfter
+                + " seconds.\",\"statusCode\":" + HttpStatus.TOO_MANY_REQUESTS.value() + "}";
+        DataBuffer buffer = response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8));
+        return response.writeWith(Mono.just(buffer));
+    }
+}
@@ -0,0 +1,203 @@
+package mk.ukim.finki.attendanceappserver.filters;
+
+import lombok.Getter;
+import mk.ukim.finki.attendanceappserver.config.AdmissionControlProperties;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adaptive concurrency limiter based on the latency gradient between the long-term and the most recent
+ * response times. While latency stays close to its long-term average the limit grows by roughly sqrt(limit);
+ * when requests start queueing in the connection pool and latency rises, the limit shrinks proportionally.
+ * Requests above the limit wait in a bounded queue until a permit is released or their deadline passes.
+ */
+class GradientConcurrencyLimiter {
+
+    // Roughly the number of samples the long-term RTT average spans
+    private static final int LONG_WINDOW = 600;
+
+    private final AdmissionControlProperties properties;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    @Getter
+    private final AtomicLong queueFullRejections = new AtomicLong();
+    @Getter
+    private final AtomicLong timeoutRejections = new AtomicLong();
+
+    private volatile double limit;
+    private double longRttNanos;
+
+    GradientConcurrencyLimiter(AdmissionControlProperties properties) {
+        this.properties = properties;
+        this.limit = properties.getInitialLimit();
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Acquires a permit, waiting in the queue up to the configured deadline
+     *
+     * @return A Mono containing the permit, or an {@link AdmissionRejectedException} if none could be acquired
+     */
+    Mono<Permit> acquire() {
+        return Mono.create(sink -> {
+            if (tryAcquire()) {
+                sink.success(new Permit());
+                return;
+            }
+
+            if (queued.incrementAndGet() > properties.getMaxQueueSize()) {
+                queued.decrementAndGet();
+                queueFullRejections.incrementAndGet();
+                sink.error(AdmissionRejectedException.QUEUE_FULL);
+                return;
+            }
+
+            var waiter = new Waiter(sink);
+            waiters.offer(waiter);
+
+            Disposable deadline = Schedulers.parallel().schedule(() -> {
+                if (waiter.claim()) {
+                    queued.decrementAndGet();
+                    timeoutRejections.incrementAndGet();
+                    sink.error(AdmissionRejectedException.QUEUE_TIMEOUT);
+                }
+            }, properties.getMaxQueueWaitMillis(), TimeUnit.MILLISECONDS);
+
+            sink.onDispose(() -> {
+                deadline.dispose();
+                if (waiter.claim()) {
+                    queued.decrementAndGet();
+                }
+            });
+
+            // A permit may have been released between the failed tryAcquire and the offer
+            drain();
+        });
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void drain() {
+        while (!waiters.isEmpty() && tryAcquire()) {
+            Waiter waiter = waiters.poll();
+            if (waiter == null) {
+                inFlight.decrementAndGet();
+                return;
+            }
+            if (waiter.claim()) {
+                queued.decrementAndGet();
+                waiter.sink().success(new Permit());
+            } else {
+                // The waiter timed out or was cancelled in the meantime
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private synchronized void onSample(long sampleNanos, int inFlightAtStart) {
+        long rttNanos = Math.max(1, sampleNanos);
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+            return;
+        }
+        longRttNanos += (rttNanos - longRttNanos) / LONG_WINDOW;
+
+        // Recover faster when latency drops well below the long-term average (e.g. after the burst)
+        if (longRttNanos / rttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        double current = limit;
+        // Don't grow the limit when the traffic doesn't use it
+        if (inFlightAtStart < current / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, properties.getRttTolerance() * longRttNanos / rttNanos));
+        double estimate = current * gradient + Math.sqrt(current);
+        double smoothed = current * (1 - properties.getSmoothing()) + estimate * properties.getSmoothing();
+        limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), smoothed));
+    }
+
+    /**
+     * Permit for a single request; released exactly once when the request finishes
+     */
+    class Permit {
+
+        private final long startNanos = System.nanoTime();
+        private final int inFlightAtStart = inFlight.get();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /**
+         * Releases the permit
+         *
+         * @param sample Whether the request latency should be used to adapt the limit
+         */
+        void release(boolean sample) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            inFlight.decrementAndGet();
+            if (sample) {
+                onSample(System.nanoTime() - startNanos, inFlightAtStart);
+            }
+            drain();
+        }
+    }
+
+    private record Waiter(MonoSink<Permit> sink, AtomicBoolean done) {
+
+        Waiter(MonoSink<Permit> sink) {
+            this(sink, new AtomicBoolean());
+        }
+
+        boolean claim() {
+            return done.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * Signals that a request could not be admitted; carries no stack trace as it is used for flow control
+     */
+    static final class AdmissionRejectedException extends RuntimeException {
+
+        static final AdmissionRejectedException QUEUE_FULL = new AdmissionRejectedException("queue_full");
+        static final AdmissionRejectedException QUEUE_TIMEOUT = new AdmissionRejectedException("queue_timeout");
+
+        private AdmissionRejectedException(String reason) {
+            super(reason, null, false, false);
+        }
+    }
+}
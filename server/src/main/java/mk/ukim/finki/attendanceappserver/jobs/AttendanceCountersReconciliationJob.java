@@ -0,0 +1,45 @@
+package mk.ukim.finki.attendanceappserver.jobs;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mk.ukim.finki.attendanceappserver.domain.repositories.StudentAttendanceRepository;
+import mk.ukim.finki.attendanceappserver.dto.db.AttendanceStatusCounts;
+import mk.ukim.finki.attendanceappserver.services.cache.SessionAttendanceCounters;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+
+@Component
+@AllArgsConstructor
+@Slf4j
+public class AttendanceCountersReconciliationJob {
+
+    private static final int SESSIONS_PER_QUERY = 500;
+
+    private final StudentAttendanceRepository studentAttendanceRepository;
+    private final SessionAttendanceCounters sessionAttendanceCounters;
+
+    @Scheduled(fixedRate = 60000) // Runs every minute
+    public void reconcileAttendanceCounters() {
+        List<Integer> sessionIds = sessionAttendanceCounters.trackedSessionIds();
+        if (sessionIds.isEmpty()) {
+            return;
+        }
+        log.debug("Starting scheduled job: Reconcile live attendance counters of {} sessions", sessionIds.size());
+
+        Flux.fromIterable(sessionIds)
+                .buffer(SESSIONS_PER_QUERY)
+                .concatMap(chunk -> studentAttendanceRepository.countAttendanceStatusesBySessions(chunk)
+                        .collectMap(AttendanceStatusCounts::getProfessorClassSessionId)
+                        .doOnNext(counts -> reconcile(chunk, counts)))
+                .subscribe(null, error -> log.error("Failed to reconcile live attendance counters: {}", error.getMessage()));
+    }
+
+    private void reconcile(List<Integer> sessionIds, Map<Integer, AttendanceStatusCounts> counts) {
+        // Sessions without a row have no attendance records
+        sessionIds.forEach(sessionId -> sessionAttendanceCounters.reconcile(sessionId, counts.get(sessionId)));
+    }
+}
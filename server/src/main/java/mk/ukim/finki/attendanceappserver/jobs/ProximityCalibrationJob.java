@@ -0,0 +1,49 @@
+package mk.ukim.finki.attendanceappserver.jobs;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mk.ukim.finki.attendanceappserver.config.ProximityCalibrationProperties;
+import mk.ukim.finki.attendanceappserver.domain.repositories.ProximityCalibrationRepository;
+import mk.ukim.finki.attendanceappserver.services.cache.ProximityCalibrationCache;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+@Component
+@AllArgsConstructor
+@Slf4j
+public class ProximityCalibrationJob {
+
+    private final ProximityCalibrationRepository proximityCalibrationRepository;
+    private final ProximityCalibrationCache proximityCalibrationCache;
+    private final ProximityCalibrationProperties properties;
+
+    @Scheduled(cron = "0 15 4 * * *") // Runs every night at 04:15, after the proximity log maintenance
+    public void calibrateRooms() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        log.info("Starting scheduled job: Calibrate Room Proximity Thresholds");
+
+        LocalDateTime from = LocalDateTime.now().minusDays(properties.getLookbackDays());
+
+        // Each room is one aggregate over its own detections, so rooms are calibrated concurrently
+        proximityCalibrationRepository.nextVersion()
+                .flatMap(version -> proximityCalibrationRepository.findRoomsWithVerifications(from)
+                        .flatMap(roomId -> proximityCalibrationRepository.calibrateRoom(roomId, version, from, properties.getMinSamples())
+                                .doOnNext(calibrated -> log.debug("Room [{}] {}", roomId, calibrated ? "calibrated" : "has too few detections"))
+                                .onErrorResume(error -> {
+                                    log.warn("Failed to calibrate room [{}]: {}", roomId, error.getMessage());
+                                    return Mono.just(false);
+                                }), properties.getParallelism())
+                        .filter(Boolean::booleanValue)
+                        .count()
+                        .doOnNext(calibrated -> log.info("Calibrated {} rooms (version {})", calibrated, version)))
+                .then(proximityCalibrationCache.reload())
+                .subscribe(null,
+                        error -> log.error("Room proximity calibration failed: {}", error.getMessage()),
+                        () -> log.info("Finished scheduled job: Calibrate Room Proximity Thresholds"));
+    }
+}
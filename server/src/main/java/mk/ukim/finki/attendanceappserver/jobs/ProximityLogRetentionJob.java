@@ -0,0 +1,78 @@
+package mk.ukim.finki.attendanceappserver.jobs;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import mk.ukim.finki.attendanceappserver.config.ProximityLogRetentionProperties;
+import mk.ukim.finki.attendanceappserver.domain.repositories.ProximityLogMaintenanceRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+/**
+ * Nightly maintenance of the monthly proximity_verification_log partitions: creates upcoming months, downsamples
+ * the raw detections of closed months and drops expired months.
+ * Downsampling deletes the raw detections from the closed month's partition and vacuums it right after, which only
+ * locks that partition. The trade-off is disk space: a plain VACUUM makes the space reusable but does not shrink the
+ * file, which keeps its size until the month is dropped. Rewriting the partition instead (VACUUM FULL, or swapping
+ * in a compacted copy) would lock the partition or the parent table for the whole rewrite, and DETACH CONCURRENTLY
+ * cannot be used while the table has a default partition.
+ */
+@Component
+@AllArgsConstructor
+@Slf4j
+public class ProximityLogRetentionJob {
+
+    // Months before the compaction cutoff that are checked again, in case an earlier run failed
+    private static final int COMPACTION_LOOKBACK_MONTHS = 3;
+
+    private final ProximityLogMaintenanceRepository proximityLogMaintenanceRepository;
+    private final ProximityLogRetentionProperties properties;
+
+    @Scheduled(cron = "0 30 3 * * *") // Runs every night at 03:30
+    public void maintainProximityLogPartitions() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        log.info("Starting scheduled job: Maintain Proximity Log Partitions");
+
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+
+        Mono<Void> createAhead = Flux.range(0, properties.getPartitionsAhead() + 1)
+                .map(currentMonth::plusMonths)
+                .concatMap(month -> proximityLogMaintenanceRepository.createPartition(month)
+                        .onErrorResume(error -> logFailure("create the partition of " + month, error)))
+                .then();
+
+        // Only whole months are compacted: the last one is the month ending before the raw detection cutoff
+        LocalDate lastCompactableMonth = LocalDate.now().minusDays(properties.getRawDetectionRetentionDays())
+                .withDayOfMonth(1).minusMonths(1);
+        Mono<Void> compact = Flux.range(0, COMPACTION_LOOKBACK_MONTHS)
+                .map(lastCompactableMonth::minusMonths)
+                .concatMap(month -> proximityLogMaintenanceRepository.compactPartition(month)
+                        .filter(Boolean::booleanValue)
+                        .doOnNext(compacted -> log.info("Downsampled raw proximity detections of {}", month))
+                        .flatMap(compacted -> proximityLogMaintenanceRepository.vacuumPartition(month))
+                        .onErrorResume(error -> logFailure("compact the partition of " + month, error)))
+                .then();
+
+        Mono<Void> drop = proximityLogMaintenanceRepository.dropPartitionsBefore(currentMonth.minusMonths(properties.getRetentionMonths()))
+                .filter(dropped -> dropped > 0)
+                .doOnNext(dropped -> log.info("Dropped {} expired proximity log partitions", dropped))
+                .then()
+                .onErrorResume(error -> logFailure("drop expired partitions", error));
+
+        // Every step runs even if an earlier one failed, so one stuck month cannot stall compaction and retention
+        createAhead.then(compact).then(drop)
+                .subscribe(null,
+                        error -> log.error("Proximity log partition maintenance failed: {}", error.getMessage()),
+                        () -> log.info("Finished scheduled job: Maintain Proximity Log Partitions"));
+    }
+
+    private static Mono<Void> logFailure(String step, Throwable error) {
+        log.error("Proximity log partition maintenance failed to {}: {}", step, error.getMessage());
+        return Mono.empty();
+    }
+}
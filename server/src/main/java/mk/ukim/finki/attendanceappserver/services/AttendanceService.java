@@ -2,17 +2,33 @@ package mk.ukim.finki.attendanceappserver.services;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import mk.ukim.finki.attendanceappserver.config.AttendanceBatchProperties;
 import mk.ukim.finki.attendanceappserver.domain.enums.AttendanceStatus;
-import mk.ukim.finki.attendanceappserver.domain.models.ProfessorClassSession;
+import mk.ukim.finki.attendanceappserver.domain.models.StudentDevice;
+import mk.ukim.finki.attendanceappserver.dto.AttendanceBatchRegistrationResultDTO;
 import mk.ukim.finki.attendanceappserver.dto.AttendanceConfirmationRequestDTO;
+import mk.ukim.finki.attendanceappserver.dto.AttendanceCountersDTO;
 import mk.ukim.finki.attendanceappserver.dto.AttendanceRegistrationRequestDTO;
 import mk.ukim.finki.attendanceappserver.dto.db.CustomStudentAttendance;
+import mk.ukim.finki.attendanceappserver.dto.db.UpsertedAttendance;
 import mk.ukim.finki.attendanceappserver.dto.AttendanceSummaryDTO;
 import mk.ukim.finki.attendanceappserver.dto.ProximityVerificationRequestDTO;
 import mk.ukim.finki.attendanceappserver.domain.repositories.ClassSessionRepository;
+import mk.ukim.finki.attendanceappserver.domain.repositories.StudentAttendanceBatchRepository;
+import mk.ukim.finki.attendanceappserver.domain.repositories.StudentAttendanceBatchRepository.AttendanceUpsert;
 import mk.ukim.finki.attendanceappserver.domain.repositories.StudentAttendanceRepository;
-import mk.ukim.finki.attendanceappserver.domain.models.StudentAttendance;
+import mk.ukim.finki.attendanceappserver.domain.repositories.StudentDeviceRepository;
+import mk.ukim.finki.attendanceappserver.domain.repositories.StudentRepository;
+import mk.ukim.finki.attendanceappserver.services.cache.ActiveAttendanceToken;
+import mk.ukim.finki.attendanceappserver.services.cache.AttendanceTokenIndex;
+import mk.ukim.finki.attendanceappserver.services.cache.SessionAttendanceCounters;
+import mk.ukim.finki.attendanceappserver.services.cache.StudentEligibility;
+import mk.ukim.finki.attendanceappserver.services.cache.StudentEligibilityCache;
+import mk.ukim.finki.attendanceappserver.services.shared.AttendanceEventPublisher;
+import mk.ukim.finki.attendanceappserver.services.shared.AttendanceTokenSigner;
 import mk.ukim.finki.attendanceappserver.services.shared.AttendanceUpdateService;
+import mk.ukim.finki.attendanceappserver.services.shared.AttendanceWriteBehindBuffer;
+import mk.ukim.finki.attendanceappserver.services.shared.ProximityVerificationQueue;
 import mk.ukim.finki.attendanceappserver.exceptions.AttendanceException;
 
 import org.springframework.stereotype.Service;
@@ -21,9 +37,19 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.annotation.NonNull;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -32,13 +58,25 @@ public class AttendanceService {
 
     private static final int DEFAULT_DAYS_LOOKBACK = 30;
     private static final int PERCENTAGE_SCALE_FACTOR = 100;
+    private static final int MAX_BATCH_REGISTRATIONS = 500;
+    private static final int BATCH_PROXIMITY_CONCURRENCY = 4;
+    private static final Duration MAX_SCAN_CLOCK_SKEW = Duration.ofMinutes(1); // Tolerated lead of a device clock over the server
 
     private final StudentAttendanceRepository studentAttendanceRepository;
+    private final StudentAttendanceBatchRepository studentAttendanceBatchRepository;
+    private final StudentRepository studentRepository;
+    private final StudentDeviceRepository studentDeviceRepository;
     private final ClassSessionRepository classSessionRepository;
-    private final StudentService studentService;
-    private final DeviceManagementService deviceManagementService;
+    private final AttendanceTokenIndex attendanceTokenIndex;
+    private final AttendanceTokenSigner attendanceTokenSigner;
+    private final StudentEligibilityCache studentEligibilityCache;
+    private final SessionAttendanceCounters sessionAttendanceCounters;
     private final AttendanceUpdateService attendanceUpdateService;
+    private final AttendanceWriteBehindBuffer attendanceWriteBehindBuffer;
+    private final AttendanceEventPublisher attendanceEventPublisher;
     private final ProximityVerificationService proximityVerificationService;
+    private final ProximityVerificationQueue proximityVerificationQueue;
+    private final AttendanceBatchProperties attendanceBatchProperties;
 
     /**
      * Retrieves a student attendance record by its ID
@@ -62,6 +100,26 @@ public class AttendanceService {
         return studentAttendanceRepository.getStudentAttendanceByProfessorClassSessionId(professorClassSessionId);
     }
 
+    /**
+     * Retrieves the live attendance counters of a class session, seeding them from the database on first access
+     *
+     * @param professorClassSessionId The ID of the professor class session
+     * @return A Mono containing the attendance counters of the class session
+     */
+    public Mono<AttendanceCountersDTO> getAttendanceCounters(int professorClassSessionId) {
+        Optional<AttendanceCountersDTO> live = sessionAttendanceCounters.getIfPresent(professorClassSessionId);
+        if (live.isPresent()) {
+            return Mono.just(live.get());
+        }
+
+        log.info("Seeding live attendance counters for professor class session with ID [{}] from database", professorClassSessionId);
+        sessionAttendanceCounters.track(professorClassSessionId);
+        return studentAttendanceRepository.countAttendanceStatusesBySessions(List.of(professorClassSessionId))
+                .next()
+                .map(counts -> sessionAttendanceCounters.reconcile(professorClassSessionId, counts))
+                .switchIfEmpty(Mono.fromSupplier(() -> sessionAttendanceCounters.reconcile(professorClassSessionId, null)));
+    }
+
     /**
      * Retrieves student attendance records for a student for the previous 30 days
      *
@@ -88,14 +146,40 @@ public class AttendanceService {
         log.info("Registering attendance for student with index [{}] with token [{}] from device [{}].",
                 dto.getStudentIndex(), dto.getToken(), dto.getDeviceId());
 
-        return validateStudentAndDevice(dto)
-                .flatMap(valid -> findAndValidateSession(dto.getToken()))
-                .flatMap(session -> handleAttendanceRecord(dto.getStudentIndex(), session.getId()))
+        return validateRegistration(dto)
+                .flatMap(session -> handleAttendanceRecord(dto.getStudentIndex(), session.professorClassSessionId()))
                 .flatMap(attendanceId -> handleProximityVerificationIfProvided(dto, attendanceId))
                 .doOnSuccess(attendanceId -> log.info("Successfully registered attendance with ID [{}] for student [{}]",
                         attendanceId, dto.getStudentIndex()));
     }
 
+    /**
+     * Registers many attendance records at once, e.g. scans queued by a client while it was offline.
+     * Students, devices and tokens are validated set-wise with one query each (skipping cached entries),
+     * accepted registrations are written with a single batched upsert and every item gets its own result.
+     * A token is checked against the time of the scan rather than the upload, so scans made while the token was
+     * valid are accepted after an outage, up to the configured maximum offline age. The scan time, clamped to the
+     * token's validity, becomes the arrival time.
+     *
+     * @param registrations The attendance registration requests
+     * @return A Mono containing one result per registration, in request order
+     */
+    public Mono<List<AttendanceBatchRegistrationResultDTO>> registerAttendanceBatch(List<AttendanceRegistrationRequestDTO> registrations) {
+        if (registrations == null || registrations.isEmpty()) {
+            return Mono.error(new AttendanceException("No attendance registrations provided."));
+        }
+        if (registrations.size() > MAX_BATCH_REGISTRATIONS) {
+            return Mono.error(new AttendanceException(String.format(
+                    "At most %d attendance registrations can be sent at once.", MAX_BATCH_REGISTRATIONS)));
+        }
+        log.info("Registering batch of {} attendance records.", registrations.size());
+
+        return Mono.zip(loadEligibilities(registrations), loadSessions(registrations))
+                .flatMap(tuple -> persistBatch(registrations, tuple.getT1(), tuple.getT2()))
+                .doOnSuccess(results -> log.info("Registered {} of {} attendance records from batch",
+                        results.stream().filter(AttendanceBatchRegistrationResultDTO::isSuccess).count(), registrations.size()));
+    }
+
     /**
      * Confirms an attendance record
      *
@@ -145,139 +229,283 @@ public class AttendanceService {
     // Private helper methods for attendance registration
 
     /**
-     * Validates that the student exists and has an approved device
+     * Validates the student, the device and the attendance token of a registration.
+     * When both the student eligibility and the token are cached no query is executed; otherwise all three
+     * are loaded with a single fused query whose result also refreshes both caches.
+     * Signed tokens are verified by their signature and never looked up.
      *
      * @param dto The attendance registration request data
-     * @return A Mono that completes if validation is successful
+     * @return A Mono containing the active token of the class session if validation is successful
      */
-    private Mono<Boolean> validateStudentAndDevice(AttendanceRegistrationRequestDTO dto) {
-        return studentService.isStudentValid(dto.getStudentIndex())
-                .flatMap(isValid -> {
-                    if (Boolean.FALSE.equals(isValid)) {
-                        return Mono.error(new AttendanceException("Student is not valid or not enrolled in the current semester."));
+    private Mono<ActiveAttendanceToken> validateRegistration(AttendanceRegistrationRequestDTO dto) {
+        if (attendanceTokenSigner.isSignedToken(dto.getToken())) {
+            // Signed tokens are verified in memory; only the eligibility may need the database
+            ActiveAttendanceToken session = attendanceTokenSigner.verify(dto.getToken()).orElse(null);
+            return studentEligibilityCache.get(dto.getStudentIndex())
+                    .flatMap(eligibility -> decideRegistration(eligibility.validEnrollment(),
+                            eligibility.isDeviceApproved(dto.getDeviceId()), session));
+        }
+
+        Optional<StudentEligibility> cachedEligibility = studentEligibilityCache.getIfPresent(dto.getStudentIndex());
+        Optional<ActiveAttendanceToken> cachedSession = attendanceTokenIndex.getIfPresent(dto.getToken());
+        if (cachedEligibility.isPresent() && cachedSession.isPresent()) {
+            StudentEligibility eligibility = cachedEligibility.get();
+            return decideRegistration(eligibility.validEnrollment(), eligibility.isDeviceApproved(dto.getDeviceId()),
+                    cachedSession.get());
+        }
+
+        return studentAttendanceRepository.validateRegistration(dto.getStudentIndex(), dto.getDeviceId(), dto.getToken())
+                .switchIfEmpty(Mono.error(new AttendanceException("Attendance registration could not be validated.")))
+                .flatMap(validation -> {
+                    boolean studentValid = Boolean.TRUE.equals(validation.getStudentValid());
+                    studentEligibilityCache.put(dto.getStudentIndex(),
+                            new StudentEligibility(studentValid, validation.getApprovedDeviceId()));
+
+                    ActiveAttendanceToken session = null;
+                    if (validation.getProfessorClassSessionId() != null) {
+                        session = new ActiveAttendanceToken(validation.getProfessorClassSessionId(), dto.getToken(),
+                                validation.getTokenExpirationTime());
+                        attendanceTokenIndex.register(session.professorClassSessionId(), session.token(), session.expirationTime());
                     }
 
-                    return deviceManagementService.isDeviceApprovedForStudent(dto.getStudentIndex(), dto.getDeviceId())
-                            .flatMap(isDeviceApproved -> {
-                                if (Boolean.FALSE.equals(isDeviceApproved)) {
-                                    return Mono.error(new AttendanceException("DEVICE_NOT_REGISTERED"));
-                                }
-                                return Mono.just(true);
-                            });
+                    return decideRegistration(studentValid, Boolean.TRUE.equals(validation.getDeviceApproved()), session);
                 });
     }
 
     /**
-     * Finds a class session by attendance token and validates it's not expired
+     * Decides whether a registration is allowed, checking the student, device and token in that order
      *
-     * @param token The attendance token
-     * @return A Mono containing the class session if found and valid
+     * @param studentValid Whether the student has a valid semester enrollment
+     * @param deviceApproved Whether the registration comes from the student's approved device
+     * @param session The active token of the class session, or null if the token is unknown
+     * @return A Mono containing the active token if the registration is allowed
      */
-    private Mono<ProfessorClassSession> findAndValidateSession(String token) {
-        return classSessionRepository.findByAttendanceToken(token)
-                .switchIfEmpty(Mono.error(new AttendanceException("Invalid attendance token.")))
-                .flatMap(session -> {
-                    if (session.getTokenExpirationTime().isBefore(LocalDateTime.now())) {
-                        return Mono.error(new AttendanceException("Attendance token has expired."));
-                    }
-                    return Mono.just(session);
-                });
+    private Mono<ActiveAttendanceToken> decideRegistration(boolean studentValid, boolean deviceApproved,
+                                                           ActiveAttendanceToken session) {
+        String rejection = findRegistrationRejection(studentValid, deviceApproved, session, LocalDateTime.now());
+        if (rejection != null) {
+            return Mono.error(new AttendanceException(rejection));
+        }
+        return Mono.just(session);
     }
 
     /**
-     * Handles the creation or update of an attendance record
+     * Finds the reason a registration is not allowed, checking the student, device and token in that order
      *
-     * @param studentIndex The index of the student
-     * @param sessionId The ID of the class session
-     * @return A Mono containing the ID of the attendance record
+     * @param studentValid Whether the student has a valid semester enrollment
+     * @param deviceApproved Whether the registration comes from the student's approved device
+     * @param session The active token of the class session, or null if the token is unknown
+     * @param now The moment the registration is made
+     * @return The rejection message, or null if the registration is allowed
      */
-    private Mono<Integer> handleAttendanceRecord(String studentIndex, int sessionId) {
-        return studentAttendanceRepository.existsStudentAttendanceByStudentIndexAndProfessorClassSessionId(
-                        studentIndex, sessionId)
-                .flatMap(exists ->
-                    Boolean.TRUE.equals(exists)
-                        ? updateExistingAttendanceRecord(studentIndex, sessionId)
-                        : createAndSaveNewAttendanceRecord(studentIndex, sessionId)
-                );
+    private String findRegistrationRejection(boolean studentValid, boolean deviceApproved,
+                                             ActiveAttendanceToken session, LocalDateTime now) {
+        if (!studentValid) {
+            return "Student is not valid or not enrolled in the current semester.";
+        }
+        if (!deviceApproved) {
+            return "DEVICE_NOT_REGISTERED";
+        }
+        if (session == null) {
+            return "Invalid attendance token.";
+        }
+        if (session.isExpired(now)) {
+            return "Attendance token has expired.";
+        }
+        return null;
     }
 
+    // Private helper methods for batch attendance registration
+
     /**
-     * Updates an existing attendance record
+     * Loads the eligibility of every student in a batch, querying only the students which are not cached
      *
-     * @param studentIndex The index of the student
-     * @param sessionId The ID of the class session
-     * @return A Mono containing the ID of the updated attendance record
+     * @param registrations The attendance registrations
+     * @return A Mono containing the eligibility per student index
      */
-    private Mono<Integer> updateExistingAttendanceRecord(String studentIndex, int sessionId) {
-        log.info("Student [{}] already has an attendance record for session [{}]. Getting existing record.",
-                studentIndex, sessionId);
-
-        return studentAttendanceRepository.findByStudentIndexAndProfessorClassSessionId(studentIndex, sessionId)
-                .flatMap(existingAttendance -> {
-                    // Update the arrival time
-                    existingAttendance.setArrivalTime(LocalDateTime.now());
-
-                    // If the status is already verified, preserve it; otherwise, reset to pending
-                    if (isStatusVerified(existingAttendance.getStatus())) {
-                        log.info("Preserving existing verified status [{}] for student [{}]",
-                                existingAttendance.getStatus(), studentIndex);
-                    } else {
-                        resetAttendanceStatusToPending(existingAttendance);
-                        log.info("Updating status to PENDING_VERIFICATION for student [{}]", studentIndex);
-                    }
+    private Mono<Map<String, StudentEligibility>> loadEligibilities(List<AttendanceRegistrationRequestDTO> registrations) {
+        Map<String, StudentEligibility> eligibilities = new HashMap<>();
+        Set<String> missingStudentIndexes = new HashSet<>();
+        for (AttendanceRegistrationRequestDTO dto : registrations) {
+            String studentIndex = dto.getStudentIndex();
+            if (studentIndex != null && !eligibilities.containsKey(studentIndex)) {
+                studentEligibilityCache.getIfPresent(studentIndex).ifPresentOrElse(
+                        eligibility -> eligibilities.put(studentIndex, eligibility),
+                        () -> missingStudentIndexes.add(studentIndex));
+            }
+        }
+        if (missingStudentIndexes.isEmpty()) {
+            return Mono.just(eligibilities);
+        }
 
-                    return studentAttendanceRepository.save(existingAttendance)
-                            .map(StudentAttendance::getId);
+        return Mono.zip(
+                        studentRepository.findValidStudentIndexes(missingStudentIndexes).collect(Collectors.toSet()),
+                        studentDeviceRepository.findByStudentIndexIn(missingStudentIndexes)
+                                .collectMap(StudentDevice::getStudentIndex, StudentDevice::getDeviceId))
+                .map(tuple -> {
+                    for (String studentIndex : missingStudentIndexes) {
+                        var eligibility = new StudentEligibility(tuple.getT1().contains(studentIndex), tuple.getT2().get(studentIndex));
+                        studentEligibilityCache.put(studentIndex, eligibility);
+                        eligibilities.put(studentIndex, eligibility);
+                    }
+                    return eligibilities;
                 });
     }
 
     /**
-     * Checks if the attendance status is verified
+     * Loads the session of every token in a batch, querying only the tokens which are not indexed
      *
-     * @param status The attendance status to check
-     * @return true if the status is verified, false otherwise
+     * @param registrations The attendance registrations
+     * @return A Mono containing the active token per attendance token
      */
-    private boolean isStatusVerified(AttendanceStatus status) {
-        return status == AttendanceStatus.PRESENT || status == AttendanceStatus.ABSENT;
+    private Mono<Map<String, ActiveAttendanceToken>> loadSessions(List<AttendanceRegistrationRequestDTO> registrations) {
+        Map<String, ActiveAttendanceToken> sessions = new HashMap<>();
+        Set<String> missingTokens = new HashSet<>();
+        for (AttendanceRegistrationRequestDTO dto : registrations) {
+            String token = dto.getToken();
+            if (token == null || sessions.containsKey(token)) {
+                continue;
+            }
+            if (attendanceTokenSigner.isSignedToken(token)) {
+                attendanceTokenSigner.verifyQueued(token).ifPresent(session -> sessions.put(token, session));
+            } else {
+                attendanceTokenIndex.getIfPresent(token).ifPresentOrElse(
+                        session -> sessions.put(token, session),
+                        () -> missingTokens.add(token));
+            }
+        }
+        if (missingTokens.isEmpty()) {
+            return Mono.just(sessions);
+        }
+
+        return classSessionRepository.findByAttendanceTokenIn(missingTokens)
+                .doOnNext(session -> {
+                    var activeToken = new ActiveAttendanceToken(session.getId(), session.getAttendanceToken(), session.getTokenExpirationTime());
+                    attendanceTokenIndex.register(activeToken.professorClassSessionId(), activeToken.token(), activeToken.expirationTime());
+                    sessions.put(activeToken.token(), activeToken);
+                })
+                .then(Mono.just(sessions));
     }
 
     /**
-     * Resets the attendance status to pending verification
+     * Validates every registration of a batch, persists the accepted ones with a single batched upsert and
+     * processes their proximity detections
      *
-     * @param attendance The attendance record to reset
+     * @param registrations The attendance registrations
+     * @param eligibilities The eligibility per student index
+     * @param sessions The active token per attendance token
+     * @return A Mono containing one result per registration, in request order
      */
-    private void resetAttendanceStatusToPending(StudentAttendance attendance) {
-        attendance.setStatus(AttendanceStatus.PENDING_VERIFICATION);
-        attendance.setProximity(null);
+    private Mono<List<AttendanceBatchRegistrationResultDTO>> persistBatch(List<AttendanceRegistrationRequestDTO> registrations,
+                                                                          Map<String, StudentEligibility> eligibilities,
+                                                                          Map<String, ActiveAttendanceToken> sessions) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime oldestScan = now.minusMinutes(attendanceBatchProperties.getMaxOfflineAgeMinutes());
+        var results = new AttendanceBatchRegistrationResultDTO[registrations.size()];
+        var acceptedPositions = new ArrayList<Integer>();
+        var upserts = new ArrayList<AttendanceUpsert>();
+
+        for (int position = 0; position < registrations.size(); position++) {
+            AttendanceRegistrationRequestDTO dto = registrations.get(position);
+            String rejection;
+            // Queued scans are judged by the moment they were made. That moment comes from the client, so it is
+            // bounded by the upload on one side and the maximum offline age on the other
+            LocalDateTime scannedAt = dto.getScannedAt() != null ? dto.getScannedAt() : now;
+            LocalDateTime arrivalTime = null;
+            if (dto.getToken() == null || dto.getStudentIndex() == null || dto.getDeviceId() == null) {
+                rejection = "Missing required fields: token, studentIndex, deviceId";
+            } else if (scannedAt.isAfter(now.plus(MAX_SCAN_CLOCK_SKEW))) {
+                rejection = "Scan time is after the upload.";
+            } else if (scannedAt.isBefore(oldestScan)) {
+                rejection = "Scan is older than the maximum offline age.";
+            } else {
+                scannedAt = scannedAt.isAfter(now) ? now : scannedAt;
+                StudentEligibility eligibility = eligibilities.get(dto.getStudentIndex());
+                ActiveAttendanceToken session = sessions.get(dto.getToken());
+                // The token must be valid at the scan time, so it expired at most the maximum offline age ago
+                rejection = findRegistrationRejection(eligibility.validEnrollment(),
+                        eligibility.isDeviceApproved(dto.getDeviceId()), session, scannedAt);
+                // Issuing instances and devices may run slightly ahead, so the same skew is tolerated here
+                if (rejection == null && session.isIssuedAfter(scannedAt.plus(MAX_SCAN_CLOCK_SKEW))) {
+                    rejection = "Attendance token was not issued yet at the scan time.";
+                }
+                // The recorded arrival never lies outside the token's validity
+                if (rejection == null) {
+                    arrivalTime = scannedAt.isBefore(session.issuedTime()) ? session.issuedTime() : scannedAt;
+                }
+            }
+
+            if (rejection != null) {
+                results[position] = buildBatchResult(position, dto, null, rejection);
+            } else {
+                acceptedPositions.add(position);
+                upserts.add(new AttendanceUpsert(dto.getStudentIndex(),
+                        sessions.get(dto.getToken()).professorClassSessionId(), arrivalTime));
+            }
+        }
+
+        if (upserts.isEmpty()) {
+            return Mono.just(Arrays.asList(results));
+        }
+
+        return studentAttendanceBatchRepository.upsertAll(upserts)
+                .doOnNext(attendanceEventPublisher::publishRegistration)
+                .collectMap(UpsertedAttendance::key, UpsertedAttendance::getId)
+                .flatMapMany(ids -> Flux.range(0, acceptedPositions.size())
+                        .flatMap(i -> {
+                            int position = acceptedPositions.get(i);
+                            AttendanceRegistrationRequestDTO dto = registrations.get(position);
+                            Integer attendanceId = ids.get(upserts.get(i).key());
+                            if (attendanceId == null) {
+                                results[position] = buildBatchResult(position, dto, null, "Attendance record was not persisted.");
+                                return Mono.empty();
+                            }
+                            return handleProximityVerificationIfProvided(dto, attendanceId)
+                                    .doOnNext(id -> results[position] = buildBatchResult(position, dto, id, null));
+                        }, BATCH_PROXIMITY_CONCURRENCY))
+                .then(Mono.fromCallable(() -> Arrays.asList(results)));
     }
 
     /**
-     * Creates and saves a new attendance record
+     * Builds the result of a single registration of a batch
      *
-     * @param studentIndex The index of the student
-     * @param sessionId The ID of the class session
-     * @return A Mono containing the ID of the new attendance record
+     * @param position The position of the registration in the request
+     * @param dto The attendance registration request data
+     * @param attendanceId The ID of the attendance record, or null if the registration failed
+     * @param message The reason of the failure, or null if the registration succeeded
+     * @return The registration result
      */
-    private Mono<Integer> createAndSaveNewAttendanceRecord(String studentIndex, int sessionId) {
-        StudentAttendance newAttendance = createNewAttendanceRecord(studentIndex, sessionId);
-        return studentAttendanceRepository.save(newAttendance)
-                .map(StudentAttendance::getId);
+    private AttendanceBatchRegistrationResultDTO buildBatchResult(int position, AttendanceRegistrationRequestDTO dto,
+                                                                  Integer attendanceId, String message) {
+        return AttendanceBatchRegistrationResultDTO.builder()
+                .position(position)
+                .studentIndex(dto.getStudentIndex())
+                .token(dto.getToken())
+                .success(attendanceId != null)
+                .attendanceId(attendanceId)
+                .message(message)
+                .build();
     }
 
     /**
-     * Creates a new attendance record with default values
+     * Creates or updates the attendance record in a single round trip, or through the batched
+     * write-behind buffer when it is enabled.
+     * A verified status (PRESENT/ABSENT) is preserved, anything else is reset to pending verification.
      *
      * @param studentIndex The index of the student
      * @param sessionId The ID of the class session
-     * @return A new attendance record
+     * @return A Mono containing the ID of the attendance record
      */
-    private StudentAttendance createNewAttendanceRecord(String studentIndex, int sessionId) {
-        return StudentAttendance.builder()
-                .studentIndex(studentIndex)
-                .professorClassSessionId(sessionId)
-                .status(AttendanceStatus.PENDING_VERIFICATION)
-                .arrivalTime(LocalDateTime.now())
-                .build();
+    private Mono<Integer> handleAttendanceRecord(String studentIndex, int sessionId) {
+        Mono<UpsertedAttendance> upsert = attendanceWriteBehindBuffer.isEnabled()
+                ? attendanceWriteBehindBuffer.submit(studentIndex, sessionId)
+                : studentAttendanceRepository.upsertAttendance(studentIndex, sessionId, LocalDateTime.now());
+
+        return upsert
+                .doOnNext(attendance -> log.debug("Upserted attendance record [{}] with status [{}] for student [{}] and session [{}]",
+                        attendance.getId(), attendance.getStatus(), studentIndex, sessionId))
+                .doOnNext(attendanceEventPublisher::publishRegistration)
+                .map(UpsertedAttendance::getId);
     }
 
     /**
@@ -300,6 +528,12 @@ public class AttendanceService {
 
         var proximityRequest = buildProximityVerificationRequest(dto, attendanceId);
 
+        // The final status is pushed through the attendance events once a background worker finishes
+        if (proximityVerificationQueue.isEnabled() && proximityVerificationQueue.submit(proximityRequest)) {
+            log.debug("Queued proximity verification for student [{}] and attendance [{}]", dto.getStudentIndex(), attendanceId);
+            return Mono.just(attendanceId);
+        }
+
         return proximityVerificationService.processProximityVerification(proximityRequest)
                 .doOnSuccess(response -> log.info("Proximity verification completed during attendance registration for student [{}]: {}",
                         dto.getStudentIndex(), response.getVerificationStatus()))
@@ -8,6 +8,7 @@ import mk.ukim.finki.attendanceappserver.domain.repositories.DeviceLinkRequestRe
 import mk.ukim.finki.attendanceappserver.domain.repositories.StudentDeviceRepository;
 import mk.ukim.finki.attendanceappserver.domain.models.DeviceLinkRequest;
 import mk.ukim.finki.attendanceappserver.domain.models.StudentDevice;
+import mk.ukim.finki.attendanceappserver.services.cache.StudentEligibilityCache;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
@@ -17,6 +18,7 @@ public class DeviceManagementService {
 
     private final DeviceLinkRequestRepository deviceLinkRequestRepository;
     private final StudentDeviceRepository studentDeviceRepository;
+    private final StudentEligibilityCache studentEligibilityCache;
 
     public Mono<APIResponse<DeviceLinkRequestDTO>> getRegisteredDevices(String studentIndex) {
         return studentDeviceRepository.findByStudentIndex(studentIndex)
@@ -65,7 +67,9 @@ public class DeviceManagementService {
                             .deviceOs(request.getDeviceOs())
                             .build();
                     
-                    return studentDeviceRepository.save(newStudentDevice).then();
+                    return studentDeviceRepository.save(newStudentDevice)
+                            .doOnSuccess(savedDevice -> studentEligibilityCache.invalidate(studentIndex))
+                            .then();
                 })
                 .onErrorMap(IllegalStateException.class, ex -> 
                     new IllegalStateException("DEVICE_ALREADY_REGISTERED"))
@@ -111,6 +115,7 @@ public class DeviceManagementService {
                             .build();
                     return studentDeviceRepository.save(newStudentDevice);
                 }))
+                .doOnNext(savedDevice -> studentEligibilityCache.invalidate(request.getStudentIndex()))
                 .flatMap(savedDevice -> {
                     request.setStatus(DeviceLinkStatus.AUTO_APPROVED);
                     return deviceLinkRequestRepository.save(request);
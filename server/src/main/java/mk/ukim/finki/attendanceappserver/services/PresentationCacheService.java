@@ -8,13 +8,18 @@ import org.springframework.stereotype.Service;
 public class PresentationCacheService {
 
     @CachePut(value = "presentations", key = "#key")
-    public byte[] put(String key, byte[] value) {
+    public Presentation put(String key, Presentation value) {
         return value;
     }
 
     @Cacheable(value = "presentations", key = "#key")
-    public byte[] get(String key) {
+    public Presentation get(String key) {
         // This method is backed by the cache. If the key is not found, Spring will return null.
         return null;
     }
+
+    /**
+     * A presentation link: the class session and the attendance token its QR code shows
+     */
+    public record Presentation(int professorClassSessionId, String token) {}
 }
@@ -2,30 +2,48 @@ package mk.ukim.finki.attendanceappserver.services;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import mk.ukim.finki.attendanceappserver.dto.ProximityDetectionDTO;
 import mk.ukim.finki.attendanceappserver.dto.ProximityVerificationRequestDTO;
 import mk.ukim.finki.attendanceappserver.dto.ProximityVerificationResponseDTO;
 import mk.ukim.finki.attendanceappserver.dto.RoomProximityAnalyticsDTO;
+import mk.ukim.finki.attendanceappserver.dto.db.ProximityRoomRollup;
+import mk.ukim.finki.attendanceappserver.domain.repositories.ProximityRollupRepository;
 import mk.ukim.finki.attendanceappserver.domain.repositories.ProximityVerificationRepository;
+import mk.ukim.finki.attendanceappserver.domain.repositories.StudentAttendanceRepository;
 import mk.ukim.finki.attendanceappserver.domain.models.ProximityVerificationLog;
+import mk.ukim.finki.attendanceappserver.exceptions.AttendanceException;
 import mk.ukim.finki.attendanceappserver.services.shared.AttendanceUpdateService;
 import mk.ukim.finki.attendanceappserver.services.shared.ProximityAnalysisService;
+import mk.ukim.finki.attendanceappserver.services.shared.RoomOccupancyTracker;
+import mk.ukim.finki.attendanceappserver.util.ProximityConstants;
 
 import org.springframework.stereotype.Service;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 @Service
 @AllArgsConstructor
 public class ProximityVerificationService {
 
+    private static final int MAX_STREAMED_DETECTIONS = 2_000;
+    private static final int DETECTION_LOG_CHUNK_SIZE = 200;
+    private static final Duration STREAM_GRACE_PERIOD = Duration.ofSeconds(5);
+    private static final int MAX_LOG_PAGE_SIZE = 500;
+
     private final ProximityVerificationRepository proximityVerificationRepository;
+    private final ProximityRollupRepository proximityRollupRepository;
+    private final StudentAttendanceRepository studentAttendanceRepository;
     private final ProximityAnalysisService proximityAnalysisService;
     private final AttendanceUpdateService attendanceUpdateService;
+    private final RoomOccupancyTracker roomOccupancyTracker;
 
     /**
      * Process comprehensive BLE beacon proximity verification
@@ -37,8 +55,9 @@ public class ProximityVerificationService {
 
         return proximityAnalysisService.validateProximityRequest(request)
                 .flatMap(valid -> proximityAnalysisService.analyzeProximityDetections(request))
+                .doOnNext(response -> recordOccupancy(request.getStudentIndex(), response))
                 .flatMap(response -> attendanceUpdateService.updateAttendanceWithProximityResult(request, response))
-                .flatMap(response -> attendanceUpdateService.logProximityVerificationSummary(request, response))
+                .flatMap(response -> attendanceUpdateService.logProximityVerification(request, response))
                 .doOnSuccess(response -> log.info("Proximity verification completed for student [{}]: {}",
                         request.getStudentIndex(), response.getVerificationStatus()))
                 .doOnError(error -> log.error("Proximity verification failed for student [{}]: {}",
@@ -46,27 +65,130 @@ public class ProximityVerificationService {
     }
 
     /**
-     * Get proximity analytics for a specific room
+     * Process a BLE beacon proximity verification whose detections are streamed while the device scans.
+     * Detections are scored incrementally and stored in chunks; the stream is cut off as soon as the outcome is
+     * conclusive, after the maximum verification duration, or when the device completes it.
      */
-    public Mono<RoomProximityAnalyticsDTO> getRoomProximityAnalytics(String roomId, LocalDateTime fromDate) {
-        return Flux.merge(
-                        proximityVerificationRepository.findByRoomIdAndDateRange(roomId, fromDate).collectList(),
-                        proximityVerificationRepository.countSuccessfulVerificationsFromDate(fromDate),
-                        proximityVerificationRepository.getAverageDistanceByRoomAndDateRange(roomId, fromDate)
-                ).collectList()
-                .map(results -> {
-                    @SuppressWarnings("unchecked")
-                    List<ProximityVerificationLog> logs = (List<ProximityVerificationLog>) results.get(0);
-                    Long successCount = (Long) results.get(1);
-                    Double avgDistance = (Double) results.get(2);
-
-                    return RoomProximityAnalyticsDTO.builder()
-                            .roomId(roomId)
-                            .totalVerifications(logs.size())
-                            .successfulVerifications(successCount.intValue())
-                            .averageDistance(avgDistance != null ? avgDistance : 0.0)
-                            .verificationLogs(logs)
+    public Mono<ProximityVerificationResponseDTO> processProximityVerificationStream(int attendanceId, String expectedRoomId,
+                                                                                  Flux<ProximityDetectionDTO> detections) {
+        if (expectedRoomId == null) {
+            return Mono.error(new IllegalArgumentException("No expected room provided"));
+        }
+
+        return studentAttendanceRepository.findById(attendanceId)
+                .switchIfEmpty(Mono.error(new AttendanceException("Attendance record not found.")))
+                .flatMap(attendance -> {
+                    log.info("Processing streamed proximity verification for student [{}] and attendance [{}]",
+                            attendance.getStudentIndex(), attendanceId);
+
+                    var request = ProximityVerificationRequestDTO.builder()
+                            .studentIndex(attendance.getStudentIndex())
+                            .attendanceId(attendanceId)
+                            .expectedRoomId(expectedRoomId)
                             .build();
-                });
+                    var accumulator = proximityAnalysisService.newAccumulator(expectedRoomId);
+                    var firstDetection = new AtomicReference<ProximityDetectionDTO>();
+                    var decision = new AtomicReference<ProximityVerificationResponseDTO>();
+
+                    return detections
+                            .take(Duration.ofSeconds(ProximityConstants.MAX_VERIFICATION_DURATION).plus(STREAM_GRACE_PERIOD))
+                            .take(MAX_STREAMED_DETECTIONS)
+                            .doOnNext(detection -> {
+                                if (firstDetection.compareAndSet(null, detection)) {
+                                    request.setSessionToken(detection.getSessionToken());
+                                }
+                                proximityAnalysisService.accumulate(accumulator, detection);
+                                decision.set(proximityAnalysisService.evaluateIfConclusive(accumulator));
+                            })
+                            .takeUntil(detection -> decision.get() != null)
+                            .buffer(DETECTION_LOG_CHUNK_SIZE)
+                            .concatMap(chunk -> attendanceUpdateService.logProximityDetections(request, chunk))
+                            .then(Mono.defer(() -> {
+                                if (accumulator.getTotalDetections() == 0) {
+                                    return Mono.error(new IllegalArgumentException("No proximity detections provided"));
+                                }
+                                request.setVerificationDurationSeconds((int) accumulator.getObservedDuration().getSeconds());
+                                var response = decision.get() != null ? decision.get() : proximityAnalysisService.evaluate(accumulator);
+                                recordOccupancy(attendance.getStudentIndex(), response);
+                                return attendanceUpdateService.updateAttendanceWithProximityResult(request, response)
+                                        .flatMap(updated -> attendanceUpdateService.logProximityVerificationSummary(
+                                                request, updated, firstDetection.get()));
+                            }))
+                            .doOnSuccess(response -> log.info("Streamed proximity verification completed for student [{}] after {} detections: {}",
+                                    attendance.getStudentIndex(), accumulator.getTotalDetections(), response.getVerificationStatus()));
+                })
+                .doOnError(error -> log.error("Streamed proximity verification failed for attendance [{}]: {}",
+                        attendanceId, error.getMessage()));
+    }
+
+    /**
+     * Get proximity analytics for a specific room from its daily rollups
+     */
+    public Mono<RoomProximityAnalyticsDTO> getRoomProximityAnalytics(String roomId, LocalDateTime fromDate) {
+        return proximityRollupRepository.findDailyRollups(roomId, fromDate.toLocalDate())
+                .collectList()
+                .map(days -> buildRoomProximityAnalytics(roomId, days));
+    }
+
+    /**
+     * Get proximity analytics for a specific room from its hourly rollups
+     */
+    public Mono<RoomProximityAnalyticsDTO> getHourlyRoomProximityAnalytics(String roomId, LocalDateTime fromDate) {
+        return proximityRollupRepository.findHourlyRollups(roomId, fromDate.truncatedTo(ChronoUnit.HOURS))
+                .collectList()
+                .map(hours -> buildRoomProximityAnalytics(roomId, hours));
+    }
+
+    /**
+     * Get the verification logs of a room, newest first, one page at a time
+     *
+     * @param roomId The ID of the room
+     * @param beforeId Only logs with a lower ID are returned; null for the first page
+     * @param limit The maximum number of logs to return
+     */
+    public Flux<ProximityVerificationLog> getRoomProximityLogs(String roomId, Long beforeId, int limit) {
+        return proximityVerificationRepository.findByRoomIdBeforeId(roomId,
+                beforeId != null ? beforeId : Long.MAX_VALUE, Math.clamp(limit, 1, MAX_LOG_PAGE_SIZE));
+    }
+
+    private void recordOccupancy(String studentIndex, ProximityVerificationResponseDTO response) {
+        // The first trusted, valid detection places the student in its room, whether or not it was the expected one;
+        // rooms only claimed by untrusted detections are never counted
+        if (response.getOccupiedRoomId() != null) {
+            roomOccupancyTracker.record(response.getOccupiedRoomId(), studentIndex);
+        }
+    }
+
+    private RoomProximityAnalyticsDTO buildRoomProximityAnalytics(String roomId, List<ProximityRoomRollup> periods) {
+        int total = 0;
+        int successful = 0;
+        int lowConfidence = 0;
+        int failed = 0;
+        int wrongRoom = 0;
+        double distanceSum = 0;
+        int distanceCount = 0;
+        for (ProximityRoomRollup period : periods) {
+            total += period.getTotalVerifications();
+            successful += period.getSuccessfulVerifications();
+            lowConfidence += period.getLowConfidenceVerifications();
+            failed += period.getFailedVerifications();
+            wrongRoom += period.getWrongRoomVerifications();
+            if (period.getAverageDistance() != null) {
+                // Weighted by the successful verifications, whose distances the average is made of
+                distanceSum += period.getAverageDistance() * period.getSuccessfulVerifications();
+                distanceCount += period.getSuccessfulVerifications();
+            }
+        }
+
+        return RoomProximityAnalyticsDTO.builder()
+                .roomId(roomId)
+                .totalVerifications(total)
+                .successfulVerifications(successful)
+                .lowConfidenceVerifications(lowConfidence)
+                .failedVerifications(failed)
+                .wrongRoomVerifications(wrongRoom)
+                .averageDistance(distanceCount > 0 ? distanceSum / distanceCount : 0.0)
+                .periods(periods)
+                .build();
     }
 }
@@ -1,20 +1,20 @@
 package mk.ukim.finki.attendanceappserver.services;
 
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.qrcode.QRCodeWriter;
 import lombok.AllArgsConstructor;
+import mk.ukim.finki.attendanceappserver.domain.enums.QRCodeFormat;
 import mk.ukim.finki.attendanceappserver.dto.GenerateQRCodeRequestDTO;
 import mk.ukim.finki.attendanceappserver.domain.repositories.ClassSessionRepository;
 import mk.ukim.finki.attendanceappserver.domain.repositories.StudentAttendanceRepository;
+import mk.ukim.finki.attendanceappserver.services.cache.ActiveAttendanceToken;
+import mk.ukim.finki.attendanceappserver.services.cache.AttendanceTokenIndex;
+import mk.ukim.finki.attendanceappserver.services.shared.AttendanceEventPublisher;
+import mk.ukim.finki.attendanceappserver.services.shared.AttendanceTokenSigner;
+import mk.ukim.finki.attendanceappserver.services.shared.QRCodeRenderer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -23,33 +23,87 @@ import java.util.UUID;
 public class QRCodeGeneratorService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(QRCodeGeneratorService.class);
+    public static final int DEFAULT_QR_CODE_SIZE = 300;
+    private static final int MIN_QR_CODE_SIZE = 64;
+    private static final int MAX_QR_CODE_SIZE = 2048;
 
     private final ClassSessionRepository classSessionRepository;
     private final StudentAttendanceRepository studentAttendanceRepository;
+    private final AttendanceTokenIndex attendanceTokenIndex;
+    private final AttendanceEventPublisher attendanceEventPublisher;
+    private final QRCodeRenderer qrCodeRenderer;
+    private final AttendanceTokenSigner attendanceTokenSigner;
 
     public Mono<byte[]> generateQRCode(GenerateQRCodeRequestDTO dto) {
-        LOGGER.info("Generating QR code for professor class session with ID [{}]", dto.getProfessorClassSessionId());
+        return generateQRCode(dto, QRCodeFormat.PNG, DEFAULT_QR_CODE_SIZE);
+    }
+
+    /**
+     * Issues a new attendance token for a class session and renders it as a QR code
+     *
+     * @param dto The QR code request
+     * @param format The output format
+     * @param size The requested width and height in pixels, clamped to the supported range; only used for PNG
+     * @return A Mono containing the rendered QR code
+     */
+    public Mono<byte[]> generateQRCode(GenerateQRCodeRequestDTO dto, QRCodeFormat format, int size) {
+        return issueAttendanceToken(dto.getProfessorClassSessionId())
+                .flatMap(token -> renderQRCode(token, format, size));
+    }
 
-        return studentAttendanceRepository.resetAttendanceStatusForSession(dto.getProfessorClassSessionId())
-                .then(classSessionRepository.findById(dto.getProfessorClassSessionId()))
+    /**
+     * Issues a new attendance token for a class session, resetting the attendance of the session
+     *
+     * @param professorClassSessionId The ID of the class session
+     * @return A Mono containing the new token
+     */
+    public Mono<String> issueAttendanceToken(int professorClassSessionId) {
+        LOGGER.info("Generating QR code for professor class session with ID [{}]", professorClassSessionId);
+
+        return studentAttendanceRepository.resetAttendanceStatusForSession(professorClassSessionId)
+                .doOnSuccess(reset -> attendanceEventPublisher.publishSessionReset(professorClassSessionId))
+                .then(classSessionRepository.findById(professorClassSessionId))
                 .switchIfEmpty(Mono.error(new IllegalArgumentException("ProfessorClassSession not found")))
                 .flatMap(session -> {
+                    // Always a stored token, even with signed tokens enabled: clients show this QR code without
+                    // refreshing it, so it has to outlive a rotation. Only presentation pages rotate signed tokens
                     String token = UUID.randomUUID().toString();
-                    LocalDateTime expirationTime = LocalDateTime.now().plusMinutes(15); // 15 minute expiration
+                    LocalDateTime expirationTime = LocalDateTime.now().plus(ActiveAttendanceToken.STORED_TOKEN_VALIDITY);
 
                     return classSessionRepository.updateAttendanceToken(session.getId(), token, expirationTime)
-                            .then(Mono.fromCallable(() -> {
-                                try {
-                                    var outputStream = new ByteArrayOutputStream();
-                                    var writer = new QRCodeWriter();
-                                    var bitMatrix = writer.encode(token, BarcodeFormat.QR_CODE, 300, 300);
-                                    MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
-                                    return outputStream.toByteArray();
-                                } catch (WriterException | IOException e) {
-                                    LOGGER.error("Error generating QR code image: {}", e.getMessage());
-                                    throw new RuntimeException(e);
-                                }
-                            }));
+                            .doOnSuccess(updated -> attendanceTokenIndex.register(session.getId(), token, expirationTime))
+                            .thenReturn(token);
                 });
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the token a presentation of a class session shows right now: the signed token of the current
+     * time window when signed tokens are enabled, otherwise the token issued when the presentation started
+     *
+     * @param professorClassSessionId The ID of the class session
+     * @param issuedToken The token issued when the presentation started
+     * @return The token to show
+     */
+    public String getPresentedToken(int professorClassSessionId, String issuedToken) {
+        return attendanceTokenSigner.isEnabled() ? attendanceTokenSigner.issue(professorClassSessionId) : issuedToken;
+    }
+
+    /**
+     * @return The interval in seconds at which presented tokens rotate, or 0 when they do not rotate
+     */
+    public int getTokenRotationSeconds() {
+        return attendanceTokenSigner.isEnabled() ? attendanceTokenSigner.getRotationSeconds() : 0;
+    }
+
+    /**
+     * Renders an already issued token as a QR code; repeated renders of the same token are served from the cache
+     *
+     * @param token The attendance token
+     * @param format The output format
+     * @param size The requested width and height in pixels, clamped to the supported range; only used for PNG
+     * @return A Mono containing the rendered QR code
+     */
+    public Mono<byte[]> renderQRCode(String token, QRCodeFormat format, int size) {
+        return qrCodeRenderer.render(token, format, Math.clamp(size, MIN_QR_CODE_SIZE, MAX_QR_CODE_SIZE));
+    }
+}
@@ -3,6 +3,8 @@ package mk.ukim.finki.attendanceappserver.services;
 import lombok.AllArgsConstructor;
 import mk.ukim.finki.attendanceappserver.domain.repositories.RoomRepository;
 import mk.ukim.finki.attendanceappserver.domain.models.Room;
+import mk.ukim.finki.attendanceappserver.dto.RoomOccupancyDTO;
+import mk.ukim.finki.attendanceappserver.services.shared.RoomOccupancyTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -10,6 +12,8 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.annotation.NonNull;
 
+import java.util.List;
+
 @AllArgsConstructor
 @Service
 public class RoomService {
@@ -17,6 +21,7 @@ public class RoomService {
     private static final Logger LOGGER = LoggerFactory.getLogger(RoomService.class);
 
     private final RoomRepository roomRepository;
+    private final RoomOccupancyTracker roomOccupancyTracker;
 
     public Flux<Room> getRooms() {
         LOGGER.info("Retrieving all rooms from database");
@@ -32,4 +37,32 @@ public class RoomService {
         LOGGER.info("Retrieving room with location description [{}] from database", description);
         return roomRepository.findByLocationDescriptionIsLike(description);
     }
+
+    /**
+     * Retrieves the estimated live occupancy of every room with recent proximity verifications
+     *
+     * @return A Flux containing the occupancy of each room
+     */
+    public Flux<RoomOccupancyDTO> getRoomOccupancies() {
+        return Flux.fromIterable(roomOccupancyTracker.estimateAll());
+    }
+
+    /**
+     * Retrieves the estimated live occupancy of a room
+     *
+     * @param name The name of the room
+     * @return A Mono containing the room's occupancy
+     */
+    public Mono<RoomOccupancyDTO> getRoomOccupancy(@NonNull String name) {
+        return Mono.fromSupplier(() -> roomOccupancyTracker.estimate(name));
+    }
+
+    /**
+     * Streams the estimated live occupancy of all rooms, starting with the current estimates
+     *
+     * @return A Flux of occupancy snapshots
+     */
+    public Flux<List<RoomOccupancyDTO>> streamRoomOccupancies() {
+        return Flux.concat(Mono.fromSupplier(roomOccupancyTracker::estimateAll), roomOccupancyTracker.updates());
+    }
 }
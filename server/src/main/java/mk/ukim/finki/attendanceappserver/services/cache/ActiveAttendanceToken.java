@@ -0,0 +1,49 @@
+package mk.ukim.finki.attendanceappserver.services.cache;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Attendance token which is currently issued for a professor class session
+ *
+ * @param professorClassSessionId The ID of the class session the token belongs to
+ * @param token The attendance token shown in the QR code
+ * @param issuedTime The moment from which the token is accepted
+ * @param expirationTime The moment after which the token is no longer accepted
+ */
+public record ActiveAttendanceToken(int professorClassSessionId, String token, LocalDateTime issuedTime,
+                                    LocalDateTime expirationTime) {
+
+    /**
+     * How long a stored attendance token is accepted after it is issued
+     */
+    public static final Duration STORED_TOKEN_VALIDITY = Duration.ofMinutes(15);
+
+    /**
+     * Creates a stored attendance token, which was issued {@link #STORED_TOKEN_VALIDITY} before it expires
+     */
+    public ActiveAttendanceToken(int professorClassSessionId, String token, LocalDateTime expirationTime) {
+        this(professorClassSessionId, token,
+                expirationTime == null ? null : expirationTime.minus(STORED_TOKEN_VALIDITY), expirationTime);
+    }
+
+    /**
+     * Checks if the token is expired at the given moment
+     *
+     * @param now The moment to check against
+     * @return true if the token has no expiration time or it is before the given moment
+     */
+    public boolean isExpired(LocalDateTime now) {
+        return expirationTime == null || expirationTime.isBefore(now);
+    }
+
+    /**
+     * Checks if the token was not issued yet at the given moment
+     *
+     * @param moment The moment to check against
+     * @return true if the token has no issue time or it is after the given moment
+     */
+    public boolean isIssuedAfter(LocalDateTime moment) {
+        return issuedTime == null || issuedTime.isAfter(moment);
+    }
+}
@@ -0,0 +1,116 @@
+package mk.ukim.finki.attendanceappserver.services.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.extern.slf4j.Slf4j;
+import mk.ukim.finki.attendanceappserver.domain.repositories.ClassSessionRepository;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory token -> class session index of the attendance tokens which are currently live.
+ * Tokens are registered when QRCodeGeneratorService issues them, evicted when they expire, and replaced when
+ * a session regenerates its token. Misses fall back to the database.
+ * <p>
+ * The index is local to this instance, so tokens must be issued by the same instance that validates them.
+ */
+@Slf4j
+@Component
+public class AttendanceTokenIndex {
+
+    private static final int MAXIMUM_ACTIVE_TOKENS = 1_000;
+
+    private final ClassSessionRepository classSessionRepository;
+    private final Cache<String, ActiveAttendanceToken> tokens;
+    private final Map<Integer, String> tokensBySession = new ConcurrentHashMap<>();
+
+    public AttendanceTokenIndex(ClassSessionRepository classSessionRepository) {
+        this.classSessionRepository = classSessionRepository;
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(MAXIMUM_ACTIVE_TOKENS)
+                .expireAfter(new TokenExpiry())
+                .removalListener((String token, ActiveAttendanceToken activeToken, RemovalCause cause) -> {
+                    if (activeToken != null) {
+                        tokensBySession.remove(activeToken.professorClassSessionId(), token);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Registers a newly issued token, invalidating the previous token of the same session
+     *
+     * @param professorClassSessionId The ID of the class session
+     * @param token The newly issued attendance token
+     * @param expirationTime The expiration time of the token
+     */
+    public void register(int professorClassSessionId, String token, LocalDateTime expirationTime) {
+        var activeToken = new ActiveAttendanceToken(professorClassSessionId, token, expirationTime);
+        if (activeToken.isExpired(LocalDateTime.now())) {
+            return;
+        }
+
+        String previousToken = tokensBySession.put(professorClassSessionId, token);
+        if (previousToken != null && !previousToken.equals(token)) {
+            log.debug("Invalidating regenerated attendance token for session [{}]", professorClassSessionId);
+            tokens.invalidate(previousToken);
+        }
+        tokens.put(token, activeToken);
+    }
+
+    /**
+     * Returns the indexed token without falling back to the database
+     *
+     * @param token The attendance token
+     * @return The active token, if it is indexed
+     */
+    public Optional<ActiveAttendanceToken> getIfPresent(String token) {
+        return Optional.ofNullable(tokens.getIfPresent(token));
+    }
+
+    /**
+     * Finds the session of an attendance token, loading and indexing it from the database on a miss
+     *
+     * @param token The attendance token
+     * @return A Mono containing the active token, or empty if no session has this token
+     */
+    public Mono<ActiveAttendanceToken> findByToken(String token) {
+        Optional<ActiveAttendanceToken> indexed = getIfPresent(token);
+        if (indexed.isPresent()) {
+            return Mono.just(indexed.get());
+        }
+
+        return classSessionRepository.findByAttendanceToken(token)
+                .map(session -> new ActiveAttendanceToken(session.getId(), token, session.getTokenExpirationTime()))
+                .doOnNext(activeToken -> register(activeToken.professorClassSessionId(), token, activeToken.expirationTime()));
+    }
+
+    /**
+     * Expires every entry exactly at its token expiration time
+     */
+    private static class TokenExpiry implements Expiry<String, ActiveAttendanceToken> {
+
+        @Override
+        public long expireAfterCreate(String token, ActiveAttendanceToken activeToken, long currentTime) {
+            return Math.max(0, Duration.between(LocalDateTime.now(), activeToken.expirationTime()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, ActiveAttendanceToken activeToken, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, activeToken, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, ActiveAttendanceToken activeToken, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package mk.ukim.finki.attendanceappserver.services.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import mk.ukim.finki.attendanceappserver.domain.models.BeaconRegistration;
+import mk.ukim.finki.attendanceappserver.domain.repositories.BeaconRegistryRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * In-memory snapshot of the active beacons in beacon_registry, keyed by beacon ID.
+ * Lookups read an immutable map without touching the database; the snapshot is replaced as a whole
+ * when the table's version (row count and latest update) changes.
+ */
+@Slf4j
+@Component
+public class BeaconRegistry {
+
+    private final BeaconRegistryRepository beaconRegistryRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(null, Map.of(), Set.of());
+
+    public BeaconRegistry(BeaconRegistryRepository beaconRegistryRepository) {
+        this.beaconRegistryRepository = beaconRegistryRepository;
+    }
+
+    @PostConstruct
+    void load() {
+        refresh().subscribe(null, error -> log.error("Failed to load beacon registry: {}", error.getMessage()));
+    }
+
+    @Scheduled(fixedDelay = 30000) // Checks for changes every 30 seconds
+    void reloadIfChanged() {
+        refresh().subscribe(null, error -> log.warn("Failed to reload beacon registry: {}", error.getMessage()));
+    }
+
+    /**
+     * @return True when the registry contains at least one beacon; detections are only validated against a loaded registry
+     */
+    public boolean isLoaded() {
+        return !snapshot.beacons().isEmpty();
+    }
+
+    /**
+     * Returns the room a dedicated beacon is registered in
+     *
+     * @param beaconId The beacon ID broadcast by the beacon
+     * @return The registered room, or null when the beacon is not registered or inactive
+     */
+    public String findRoom(String beaconId) {
+        return beaconId == null ? null : snapshot.beacons().get(beaconId);
+    }
+
+    /**
+     * Checks whether a room has at least one active dedicated beacon
+     *
+     * @param roomId The ID of the room
+     * @return True when a beacon is registered in the room
+     */
+    public boolean hasBeacons(String roomId) {
+        return roomId != null && snapshot.rooms().contains(roomId);
+    }
+
+    private Mono<Void> refresh() {
+        return beaconRegistryRepository.findVersion()
+                .filter(version -> !Objects.equals(version, snapshot.version()))
+                .flatMap(version -> beaconRegistryRepository.findByActiveTrue()
+                        .collectMap(BeaconRegistration::getBeaconId, BeaconRegistration::getRoomId)
+                        .doOnNext(beacons -> {
+                            snapshot = new Snapshot(version, Map.copyOf(beacons), Set.copyOf(beacons.values()));
+                            log.info("Loaded {} active beacons into the beacon registry", beacons.size());
+                        }))
+                .then();
+    }
+
+    private record Snapshot(String version, Map<String, String> beacons, Set<String> rooms) {}
+}
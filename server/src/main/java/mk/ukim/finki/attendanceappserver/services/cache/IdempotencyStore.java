@@ -0,0 +1,65 @@
+package mk.ukim.finki.attendanceappserver.services.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, TTL-evicting store of recent results for requests carrying an Idempotency-Key header.
+ * A replayed request gets the stored result without re-running the operation, and concurrent duplicates
+ * subscribe to the same in-flight Mono. Failed operations are not stored, so they can be retried.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final String CACHE_NAME = "idempotency";
+    private static final int MAXIMUM_SIZE = 50_000;
+    private static final Duration EXPIRE_AFTER_WRITE = Duration.ofMinutes(10);
+
+    private final Cache<String, Mono<?>> results;
+
+    public IdempotencyStore(MeterRegistry meterRegistry) {
+        this.results = Caffeine.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .expireAfterWrite(EXPIRE_AFTER_WRITE)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, results, CACHE_NAME);
+    }
+
+    /**
+     * Runs an operation at most once per idempotency key
+     *
+     * @param scope The scope of the key, e.g. the endpoint and the requesting student
+     * @param idempotencyKey The client supplied idempotency key; the operation is always run when it is blank
+     * @param operation Supplies the operation to run
+     * @return A Mono containing the result of the first run of the operation for this key
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(String scope, String idempotencyKey, Supplier<Mono<T>> operation) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return operation.get();
+        }
+
+        String key = scope + ":" + idempotencyKey;
+        return Mono.defer(() -> (Mono<T>) results.asMap().computeIfAbsent(key, k -> {
+            var stored = new AtomicReference<Mono<T>>();
+            Mono<T> result = Mono.defer(operation)
+                    .doOnError(error -> results.asMap().remove(k, stored.get()))
+                    .cache();
+            stored.set(result);
+            return result;
+        }));
+    }
+}
@@ -0,0 +1,76 @@
+package mk.ukim.finki.attendanceappserver.services.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import mk.ukim.finki.attendanceappserver.config.ProximityCalibrationProperties;
+import mk.ukim.finki.attendanceappserver.domain.repositories.ProximityCalibrationRepository;
+import mk.ukim.finki.attendanceappserver.dto.db.ProximityRoomCalibration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-memory snapshot of the latest proximity calibration of every room, keyed by room ID.
+ * The snapshot is replaced as a whole when a calibration run publishes a new version; when calibration is
+ * disabled it stays empty and every room uses the default thresholds.
+ */
+@Slf4j
+@Component
+public class ProximityCalibrationCache {
+
+    private final ProximityCalibrationRepository proximityCalibrationRepository;
+    private final ProximityCalibrationProperties properties;
+
+    private volatile Snapshot snapshot = new Snapshot(0L, Map.of());
+
+    public ProximityCalibrationCache(ProximityCalibrationRepository proximityCalibrationRepository,
+                                     ProximityCalibrationProperties properties) {
+        this.proximityCalibrationRepository = proximityCalibrationRepository;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    void load() {
+        reload().subscribe(null, error -> log.error("Failed to load proximity calibrations: {}", error.getMessage()));
+    }
+
+    @Scheduled(fixedDelay = 300000) // Checks for a new calibration version every 5 minutes
+    void reloadIfChanged() {
+        reload().subscribe(null, error -> log.warn("Failed to reload proximity calibrations: {}", error.getMessage()));
+    }
+
+    /**
+     * Loads the latest calibrations if a newer version was published
+     *
+     * @return A Mono that completes when the snapshot is current
+     */
+    public Mono<Void> reload() {
+        if (!properties.isEnabled()) {
+            return Mono.empty();
+        }
+        return proximityCalibrationRepository.findLatestVersion()
+                .filter(version -> version > snapshot.version())
+                .flatMap(version -> proximityCalibrationRepository.findLatestCalibrations()
+                        .collectMap(ProximityRoomCalibration::getRoomId, Function.identity())
+                        .doOnNext(calibrations -> {
+                            snapshot = new Snapshot(version, Map.copyOf(calibrations));
+                            log.info("Loaded proximity calibrations of {} rooms (version {})", calibrations.size(), version);
+                        }))
+                .then();
+    }
+
+    /**
+     * Returns the latest calibration of a room
+     *
+     * @param roomId The ID of the room
+     * @return The room's calibration, or null when the room is not calibrated
+     */
+    public ProximityRoomCalibration find(String roomId) {
+        return roomId == null ? null : snapshot.calibrations().get(roomId);
+    }
+
+    private record Snapshot(long version, Map<String, ProximityRoomCalibration> calibrations) {}
+}
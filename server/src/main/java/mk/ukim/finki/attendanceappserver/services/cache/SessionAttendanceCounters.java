@@ -0,0 +1,197 @@
+package mk.ukim.finki.attendanceappserver.services.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import mk.ukim.finki.attendanceappserver.domain.enums.AttendanceStatus;
+import mk.ukim.finki.attendanceappserver.domain.enums.ProximityVerificationStatus;
+import mk.ukim.finki.attendanceappserver.dto.AttendanceCountersDTO;
+import mk.ukim.finki.attendanceappserver.dto.AttendanceStatusEventDTO;
+import mk.ukim.finki.attendanceappserver.dto.db.AttendanceStatusCounts;
+import mk.ukim.finki.attendanceappserver.services.shared.AttendanceEventPublisher;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live attendance counters of the class sessions somebody is looking at.
+ * A session is tracked once its counters are seeded from the database; from then on they are kept current from the
+ * attendance events without locking and periodically reconciled against the database to correct any drift.
+ */
+@Slf4j
+@Component
+public class SessionAttendanceCounters {
+
+    private static final int MAXIMUM_SIZE = 5_000;
+    private static final Duration EXPIRE_AFTER_ACCESS = Duration.ofHours(6);
+
+    private final AttendanceEventPublisher attendanceEventPublisher;
+    private final Cache<Integer, Counters> counters;
+
+    private Disposable subscription;
+
+    public SessionAttendanceCounters(AttendanceEventPublisher attendanceEventPublisher) {
+        this.attendanceEventPublisher = attendanceEventPublisher;
+        this.counters = Caffeine.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .expireAfterAccess(EXPIRE_AFTER_ACCESS)
+                .build();
+    }
+
+    @PostConstruct
+    void start() {
+        subscription = attendanceEventPublisher.events()
+                .subscribe(this::apply, error -> log.error("Live attendance counters stopped: {}", error.getMessage()));
+    }
+
+    @PreDestroy
+    void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Returns the live counters of a session without falling back to the database
+     *
+     * @param professorClassSessionId The ID of the class session
+     * @return The counters, if the session is tracked
+     */
+    public Optional<AttendanceCountersDTO> getIfPresent(int professorClassSessionId) {
+        Counters sessionCounters = counters.getIfPresent(professorClassSessionId);
+        if (sessionCounters == null || !sessionCounters.seeded) {
+            return Optional.empty();
+        }
+        return Optional.of(sessionCounters.toDto(professorClassSessionId));
+    }
+
+    /**
+     * Starts tracking a session before its counts are loaded, so events arriving during the load are not lost
+     *
+     * @param professorClassSessionId The ID of the class session
+     */
+    public void track(int professorClassSessionId) {
+        counters.get(professorClassSessionId, id -> new Counters());
+    }
+
+    /**
+     * Sets the counters of a tracked session to the counts loaded from the database
+     *
+     * @param professorClassSessionId The ID of the class session
+     * @param counts The counts loaded from the database, or null when the session has no attendance records
+     * @return The reconciled counters
+     */
+    public AttendanceCountersDTO reconcile(int professorClassSessionId, AttendanceStatusCounts counts) {
+        Counters sessionCounters = counters.get(professorClassSessionId, id -> new Counters());
+        sessionCounters.reconcile(counts);
+        return sessionCounters.toDto(professorClassSessionId);
+    }
+
+    /**
+     * @return The IDs of all tracked sessions
+     */
+    public List<Integer> trackedSessionIds() {
+        return List.copyOf(counters.asMap().keySet());
+    }
+
+    private void apply(AttendanceStatusEventDTO event) {
+        Counters sessionCounters = counters.getIfPresent(event.getProfessorClassSessionId());
+        if (sessionCounters == null) {
+            return;
+        }
+        if (AttendanceStatusEventDTO.SESSION_RESET.equals(event.getEventType())) {
+            sessionCounters.resetToPending();
+        } else {
+            sessionCounters.transition(event);
+        }
+    }
+
+    private static final class Counters {
+
+        private final LongAdder registered = new LongAdder();
+        private final LongAdder pending = new LongAdder();
+        private final LongAdder present = new LongAdder();
+        private final LongAdder absent = new LongAdder();
+        private final Set<Integer> lowConfidence = ConcurrentHashMap.newKeySet();
+
+        private volatile boolean seeded;
+
+        void transition(AttendanceStatusEventDTO event) {
+            if (event.getPreviousStatus() == null) {
+                registered.increment();
+            } else {
+                of(event.getPreviousStatus()).decrement();
+            }
+            of(event.getStatus()).increment();
+
+            Integer attendanceId = event.getAttendanceId();
+            if (attendanceId == null) {
+                return;
+            }
+            if (event.getStatus() != AttendanceStatus.PRESENT) {
+                lowConfidence.remove(attendanceId);
+            } else if (event.getVerificationStatus() != null) {
+                // Re-registrations and manual confirmations keep the outcome of the last verification
+                if (ProximityVerificationStatus.SUCCESS_LOW_CONFIDENCE.name().equals(event.getVerificationStatus())) {
+                    lowConfidence.add(attendanceId);
+                } else {
+                    lowConfidence.remove(attendanceId);
+                }
+            }
+        }
+
+        void resetToPending() {
+            set(pending, registered.sum());
+            set(present, 0);
+            set(absent, 0);
+            lowConfidence.clear();
+        }
+
+        // Concurrent increments between reading and adjusting a counter are corrected by the next reconciliation
+        void reconcile(AttendanceStatusCounts counts) {
+            set(registered, counts == null ? 0 : counts.getRegistered());
+            set(pending, counts == null ? 0 : counts.getPending());
+            set(present, counts == null ? 0 : counts.getPresent());
+            set(absent, counts == null ? 0 : counts.getAbsent());
+
+            List<Integer> lowConfidenceIds = counts == null || counts.getLowConfidenceAttendanceIds() == null
+                    ? List.of()
+                    : Arrays.asList(counts.getLowConfidenceAttendanceIds());
+            lowConfidence.retainAll(lowConfidenceIds);
+            lowConfidence.addAll(lowConfidenceIds);
+            seeded = true;
+        }
+
+        AttendanceCountersDTO toDto(int professorClassSessionId) {
+            return AttendanceCountersDTO.builder()
+                    .professorClassSessionId(professorClassSessionId)
+                    .registered(registered.sum())
+                    .pending(pending.sum())
+                    .present(present.sum())
+                    .absent(absent.sum())
+                    .lowConfidence(lowConfidence.size())
+                    .build();
+        }
+
+        private LongAdder of(AttendanceStatus status) {
+            return switch (status) {
+                case PENDING_VERIFICATION -> pending;
+                case PRESENT -> present;
+                case ABSENT -> absent;
+            };
+        }
+
+        private static void set(LongAdder counter, long value) {
+            counter.add(value - counter.sum());
+        }
+    }
+}
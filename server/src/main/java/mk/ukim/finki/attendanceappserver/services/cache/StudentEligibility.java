@@ -0,0 +1,20 @@
+package mk.ukim.finki.attendanceappserver.services.cache;
+
+/**
+ * Everything needed to decide whether a student may register attendance
+ *
+ * @param validEnrollment Whether the student has a valid semester enrollment
+ * @param approvedDeviceId The ID of the student's approved device, or null if none is registered
+ */
+public record StudentEligibility(boolean validEnrollment, String approvedDeviceId) {
+
+    /**
+     * Checks if the given device is the student's approved device
+     *
+     * @param deviceId The ID of the device used for registration
+     * @return true if the device matches the approved device
+     */
+    public boolean isDeviceApproved(String deviceId) {
+        return approvedDeviceId != null && approvedDeviceId.equals(deviceId);
+    }
+}
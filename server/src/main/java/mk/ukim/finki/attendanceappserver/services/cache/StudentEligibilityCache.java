@@ -0,0 +1,126 @@
+package mk.ukim.finki.attendanceappserver.services.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import mk.ukim.finki.attendanceappserver.domain.models.StudentDevice;
+import mk.ukim.finki.attendanceappserver.domain.repositories.StudentDeviceRepository;
+import mk.ukim.finki.attendanceappserver.domain.repositories.StudentRepository;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Cache of student eligibility (valid semester enrollment and approved device) keyed by student index.
+ * Entries are invalidated by DeviceManagementService whenever a student's device changes. Enrollments change
+ * outside this service, so a missing enrollment is only cached briefly and a new enrollment is picked up quickly.
+ * Hit/miss statistics are published as the "studentEligibility" cache metrics.
+ */
+@Slf4j
+@Component
+public class StudentEligibilityCache {
+
+    private static final String CACHE_NAME = "studentEligibility";
+    private static final int MAXIMUM_SIZE = 20_000;
+    private static final Duration EXPIRE_AFTER_WRITE = Duration.ofMinutes(10);
+    private static final Duration NOT_ENROLLED_EXPIRE_AFTER_WRITE = Duration.ofSeconds(30);
+
+    private final StudentRepository studentRepository;
+    private final StudentDeviceRepository studentDeviceRepository;
+    private final Cache<String, StudentEligibility> cache;
+
+    public StudentEligibilityCache(StudentRepository studentRepository,
+                                   StudentDeviceRepository studentDeviceRepository,
+                                   MeterRegistry meterRegistry) {
+        this.studentRepository = studentRepository;
+        this.studentDeviceRepository = studentDeviceRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .expireAfter(new EligibilityExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached eligibility without falling back to the database
+     *
+     * @param studentIndex The index of the student
+     * @return The cached eligibility, if present
+     */
+    public Optional<StudentEligibility> getIfPresent(String studentIndex) {
+        return Optional.ofNullable(cache.getIfPresent(studentIndex));
+    }
+
+    /**
+     * Returns the eligibility of a student, loading and caching it from the database on a miss
+     *
+     * @param studentIndex The index of the student
+     * @return A Mono containing the student's eligibility
+     */
+    public Mono<StudentEligibility> get(String studentIndex) {
+        Optional<StudentEligibility> cached = getIfPresent(studentIndex);
+        if (cached.isPresent()) {
+            return Mono.just(cached.get());
+        }
+
+        Mono<Boolean> validEnrollment = studentRepository.checkStudentValidity(studentIndex)
+                .map(count -> count.compareTo(BigInteger.ZERO) > 0)
+                .defaultIfEmpty(false);
+        Mono<Optional<String>> approvedDeviceId = studentDeviceRepository.findByStudentIndex(studentIndex)
+                .map(StudentDevice::getDeviceId)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty());
+
+        return Mono.zip(validEnrollment, approvedDeviceId)
+                .map(tuple -> new StudentEligibility(tuple.getT1(), tuple.getT2().orElse(null)))
+                .doOnNext(eligibility -> put(studentIndex, eligibility));
+    }
+
+    /**
+     * Stores the eligibility of a student loaded elsewhere
+     *
+     * @param studentIndex The index of the student
+     * @param eligibility The student's eligibility
+     */
+    public void put(String studentIndex, StudentEligibility eligibility) {
+        cache.put(studentIndex, eligibility);
+    }
+
+    /**
+     * Drops the cached eligibility of a student, e.g. after a device change
+     *
+     * @param studentIndex The index of the student
+     */
+    public void invalidate(String studentIndex) {
+        log.debug("Invalidating cached eligibility for student [{}]", studentIndex);
+        cache.invalidate(studentIndex);
+    }
+
+    /**
+     * Expires eligible students after the regular TTL and students without a valid enrollment much sooner
+     */
+    private static class EligibilityExpiry implements Expiry<String, StudentEligibility> {
+
+        @Override
+        public long expireAfterCreate(String studentIndex, StudentEligibility eligibility, long currentTime) {
+            return (eligibility.validEnrollment() ? EXPIRE_AFTER_WRITE : NOT_ENROLLED_EXPIRE_AFTER_WRITE).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String studentIndex, StudentEligibility eligibility, long currentTime, long currentDuration) {
+            return expireAfterCreate(studentIndex, eligibility, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String studentIndex, StudentEligibility eligibility, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package mk.ukim.finki.attendanceappserver.services.shared;
+
+import lombok.extern.slf4j.Slf4j;
+import mk.ukim.finki.attendanceappserver.domain.enums.AttendanceStatus;
+import mk.ukim.finki.attendanceappserver.domain.models.StudentAttendance;
+import mk.ukim.finki.attendanceappserver.dto.AttendanceStatusEventDTO;
+import mk.ukim.finki.attendanceappserver.dto.db.UpsertedAttendance;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * In-process stream of attendance status changes, fed by AttendanceService and AttendanceUpdateService.
+ * Events are only delivered to current subscribers; nothing is stored.
+ */
+@Slf4j
+@Component
+public class AttendanceEventPublisher {
+
+    private static final Duration EMIT_RETRY_DURATION = Duration.ofMillis(5);
+
+    private final Sinks.Many<AttendanceStatusEventDTO> events = Sinks.many().multicast().directBestEffort();
+
+    /**
+     * Publishes the result of an attendance registration
+     *
+     * @param attendance The upserted attendance record
+     */
+    public void publishRegistration(UpsertedAttendance attendance) {
+        // A re-registration preserves PRESENT/ABSENT and otherwise keeps the record pending
+        AttendanceStatus previousStatus = Boolean.TRUE.equals(attendance.getInserted()) ? null : attendance.getStatus();
+        publish(AttendanceStatusEventDTO.builder()
+                .eventType(AttendanceStatusEventDTO.STATUS_CHANGED)
+                .professorClassSessionId(attendance.getProfessorClassSessionId())
+                .attendanceId(attendance.getId())
+                .studentIndex(attendance.getStudentIndex())
+                .previousStatus(previousStatus)
+                .status(attendance.getStatus())
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * Publishes a status change of an existing attendance record
+     *
+     * @param attendance The saved attendance record
+     * @param previousStatus The status before the change
+     */
+    public void publishStatusChange(StudentAttendance attendance, AttendanceStatus previousStatus) {
+        publishStatusChange(attendance, previousStatus, null);
+    }
+
+    /**
+     * Publishes a status change of an existing attendance record caused by a proximity verification
+     *
+     * @param attendance The saved attendance record
+     * @param previousStatus The status before the change
+     * @param verificationStatus The outcome of the proximity verification
+     */
+    public void publishStatusChange(StudentAttendance attendance, AttendanceStatus previousStatus, String verificationStatus) {
+        publish(AttendanceStatusEventDTO.builder()
+                .eventType(AttendanceStatusEventDTO.STATUS_CHANGED)
+                .professorClassSessionId(attendance.getProfessorClassSessionId())
+                .attendanceId(attendance.getId())
+                .studentIndex(attendance.getStudentIndex())
+                .previousStatus(previousStatus)
+                .status(attendance.getStatus())
+                .proximity(attendance.getProximity())
+                .verificationStatus(verificationStatus)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * Publishes that all attendance statuses of a session were reset to pending verification
+     *
+     * @param professorClassSessionId The ID of the class session
+     */
+    public void publishSessionReset(int professorClassSessionId) {
+        publish(AttendanceStatusEventDTO.builder()
+                .eventType(AttendanceStatusEventDTO.SESSION_RESET)
+                .professorClassSessionId(professorClassSessionId)
+                .status(AttendanceStatus.PENDING_VERIFICATION)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * Streams the events of a single class session
+     *
+     * @param professorClassSessionId The ID of the class session
+     * @return A Flux of the session's events, starting from the moment of subscription
+     */
+    public Flux<AttendanceStatusEventDTO> events(int professorClassSessionId) {
+        return events.asFlux()
+                .filter(event -> event.getProfessorClassSessionId() == professorClassSessionId);
+    }
+
+    /**
+     * Streams the events of all class sessions
+     *
+     * @return A Flux of all events, starting from the moment of subscription
+     */
+    public Flux<AttendanceStatusEventDTO> events() {
+        return events.asFlux();
+    }
+
+    private void publish(AttendanceStatusEventDTO event) {
+        // Concurrent publishers retry for a bounded time instead of spinning on the event loop indefinitely
+        Sinks.EmitFailureHandler retry = Sinks.EmitFailureHandler.busyLooping(EMIT_RETRY_DURATION);
+        Sinks.EmitResult result;
+        do {
+            result = events.tryEmitNext(event);
+        } while (result == Sinks.EmitResult.FAIL_NON_SERIALIZED && retry.onEmitFailure(SignalType.ON_NEXT, result));
+        if (result.isFailure() && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+            log.debug("Attendance event for session [{}] was not published: {}", event.getProfessorClassSessionId(), result);
+        }
+    }
+}
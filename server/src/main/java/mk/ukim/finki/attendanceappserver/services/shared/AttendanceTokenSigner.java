@@ -0,0 +1,181 @@
+package mk.ukim.finki.attendanceappserver.services.shared;
+
+import lombok.extern.slf4j.Slf4j;
+import mk.ukim.finki.attendanceappserver.config.AttendanceTokenProperties;
+import mk.ukim.finki.attendanceappserver.services.cache.ActiveAttendanceToken;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Issues and verifies stateless attendance tokens: an HMAC-SHA256 signed payload of the class session
+ * and the time window it was issued for, "s1.&lt;payload&gt;.&lt;signature&gt;" in URL-safe Base64.
+ * Verification is pure CPU, so it needs no database read and scales with the number of cores.
+ * A token expires once its window and the grace windows after it have passed, so a screenshot of
+ * the rotating QR code goes stale within seconds.
+ */
+@Slf4j
+@Component
+public class AttendanceTokenSigner {
+
+    private static final String PREFIX = "s1.";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int SIGNATURE_BYTES = 16; // Truncated HMAC, keeps the QR code small
+    private static final int PAYLOAD_BYTES = Integer.BYTES + Long.BYTES;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final AttendanceTokenProperties properties;
+    private final ThreadLocal<Mac> macs;
+
+    public AttendanceTokenSigner(AttendanceTokenProperties properties) {
+        this.properties = properties;
+
+        byte[] key;
+        if (properties.getSecret() == null || properties.getSecret().isBlank()) {
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            if (properties.isSigned()) {
+                log.warn("No app.attendance.token.secret configured, signed attendance tokens are only valid on this instance");
+            }
+        } else {
+            key = Base64.getDecoder().decode(properties.getSecret());
+        }
+
+        SecretKeySpec keySpec = new SecretKeySpec(key, ALGORITHM);
+        // Mac instances are not thread-safe; one per thread keeps verification free of contention
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(keySpec);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Could not initialize attendance token signing", e);
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return properties.isSigned();
+    }
+
+    public int getRotationSeconds() {
+        return properties.getRotationSeconds();
+    }
+
+    /**
+     * Checks whether a token is in the signed format, without verifying it
+     *
+     * @param token The attendance token
+     * @return True when the token should be verified by this signer instead of being looked up
+     */
+    public boolean isSignedToken(String token) {
+        return token != null && token.startsWith(PREFIX);
+    }
+
+    /**
+     * Issues the token of a class session for the current time window
+     *
+     * @param professorClassSessionId The ID of the class session
+     * @return The signed token
+     */
+    public String issue(int professorClassSessionId) {
+        return issue(professorClassSessionId, windowOf(Instant.now()));
+    }
+
+    /**
+     * Issues the token of a class session for a time window
+     *
+     * @param professorClassSessionId The ID of the class session
+     * @param window The time window, in rotation periods since the epoch
+     * @return The signed token
+     */
+    public String issue(int professorClassSessionId, long window) {
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_BYTES).putInt(professorClassSessionId).putLong(window).array();
+        return PREFIX + ENCODER.encodeToString(payload) + '.' + ENCODER.encodeToString(sign(payload));
+    }
+
+    /**
+     * Verifies a signed token
+     *
+     * @param token The attendance token
+     * @return The session and validity of the token, which may already be expired,
+     * or empty when the token is malformed, forged or issued for a window more than one ahead of the current one
+     */
+    public Optional<ActiveAttendanceToken> verify(String token) {
+        return verify(token, Long.MIN_VALUE);
+    }
+
+    /**
+     * Verifies a signed token from a queued scan uploaded later, e.g. after the client was offline.
+     * Only tokens still valid at the upload, or expired at most app.attendance.token.max-offline-windows windows
+     * before it, are accepted, so a screenshot of the rotating QR code cannot be replayed through a batch upload.
+     *
+     * @param token The attendance token
+     * @return The session and validity of the token, or empty when it is invalid or too old for an upload
+     */
+    public Optional<ActiveAttendanceToken> verifyQueued(String token) {
+        long current = windowOf(Instant.now());
+        return verify(token, current - properties.getGraceWindows() - Math.max(properties.getMaxOfflineWindows(), 0));
+    }
+
+    private Optional<ActiveAttendanceToken> verify(String token, long oldestWindow) {
+        if (!isSignedToken(token)) {
+            return Optional.empty();
+        }
+        int separator = token.indexOf('.', PREFIX.length());
+        if (separator < 0) {
+            return Optional.empty();
+        }
+
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(PREFIX.length(), separator));
+            signature = DECODER.decode(token.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (payload.length != PAYLOAD_BYTES || !MessageDigest.isEqual(sign(payload), signature)) {
+            return Optional.empty();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        int professorClassSessionId = buffer.getInt();
+        long window = buffer.getLong();
+        // One window ahead is tolerated, for instances whose clock is slightly ahead at a rotation boundary
+        if (window > windowOf(Instant.now()) + 1 || window < oldestWindow) {
+            return Optional.empty();
+        }
+
+        long rotationMillis = properties.getRotationSeconds() * 1000L;
+        Instant issuedAt = Instant.ofEpochMilli(window * rotationMillis);
+        Instant expiresAt = Instant.ofEpochMilli((window + 1 + properties.getGraceWindows()) * rotationMillis);
+        return Optional.of(new ActiveAttendanceToken(professorClassSessionId, token,
+                LocalDateTime.ofInstant(issuedAt, ZoneId.systemDefault()),
+                LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault())));
+    }
+
+    /**
+     * @return The time window containing the given moment, in rotation periods since the epoch
+     */
+    public long windowOf(Instant instant) {
+        return instant.toEpochMilli() / (properties.getRotationSeconds() * 1000L);
+    }
+
+    private byte[] sign(byte[] payload) {
+        return Arrays.copyOf(macs.get().doFinal(payload), SIGNATURE_BYTES);
+    }
+}
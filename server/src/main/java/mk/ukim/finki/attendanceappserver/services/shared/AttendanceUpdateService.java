@@ -7,7 +7,8 @@ import mk.ukim.finki.attendanceappserver.domain.enums.ProximityLevel;
 import mk.ukim.finki.attendanceappserver.domain.enums.ProximityVerificationStatus;
 import mk.ukim.finki.attendanceappserver.domain.models.ProximityVerificationLog;
 import mk.ukim.finki.attendanceappserver.domain.models.StudentAttendance;
-import mk.ukim.finki.attendanceappserver.domain.repositories.ProximityVerificationRepository;
+import mk.ukim.finki.attendanceappserver.domain.repositories.ProximityRollupRepository;
+import mk.ukim.finki.attendanceappserver.domain.repositories.ProximityVerificationBatchRepository;
 import mk.ukim.finki.attendanceappserver.domain.repositories.StudentAttendanceRepository;
 import mk.ukim.finki.attendanceappserver.dto.ProximityDetectionDTO;
 import mk.ukim.finki.attendanceappserver.dto.ProximityVerificationRequestDTO;
@@ -18,6 +19,8 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 /**
  * Shared service for attendance and logging operations to eliminate duplication
  * between AttendanceService and ProximityVerificationService
@@ -28,13 +31,16 @@ import java.time.LocalDateTime;
 public class AttendanceUpdateService {
 
     private final StudentAttendanceRepository studentAttendanceRepository;
-    private final ProximityVerificationRepository proximityVerificationRepository;
+    private final ProximityVerificationBatchRepository proximityVerificationBatchRepository;
+    private final ProximityRollupRepository proximityRollupRepository;
+    private final AttendanceEventPublisher attendanceEventPublisher;
 
     /**
      * Updates attendance status based on proximity verification results
      */
     public Mono<StudentAttendance> updateAttendanceStatus(StudentAttendance attendance,
                                                           ProximityVerificationResponseDTO response) {
+        AttendanceStatus previousStatus = attendance.getStatus();
         if (Boolean.TRUE.equals(response.getVerificationSuccess())) {
             attendance.setStatus(AttendanceStatus.PRESENT);
             Double avgDistance = response.getAverageDistance();
@@ -51,20 +57,30 @@ public class AttendanceUpdateService {
             attendance.setProximity(null);
             log.debug("Attendance [{}] marked absent, no proximity value stored", attendance.getId());
         }
-        return studentAttendanceRepository.save(attendance);
+        return saveAndPublish(attendance, previousStatus, response.getVerificationStatus());
     }
 
     /**
      * Updates attendance status for manual proximity confirmation
      */
     public Mono<StudentAttendance> updateAttendanceStatusForManualProximity(StudentAttendance attendance, String proximity) {
+        AttendanceStatus previousStatus = attendance.getStatus();
         if ("NEAR".equals(proximity) || "MEDIUM".equals(proximity)) {
             attendance.setStatus(AttendanceStatus.PRESENT);
         } else {
             attendance.setStatus(AttendanceStatus.ABSENT);
         }
         attendance.setProximity(proximity);
-        return studentAttendanceRepository.save(attendance);
+        return saveAndPublish(attendance, previousStatus, null);
+    }
+
+    /**
+     * Saves an attendance record and publishes its status change to live subscribers
+     */
+    private Mono<StudentAttendance> saveAndPublish(StudentAttendance attendance, AttendanceStatus previousStatus,
+                                                   String verificationStatus) {
+        return studentAttendanceRepository.save(attendance)
+                .doOnNext(saved -> attendanceEventPublisher.publishStatusChange(saved, previousStatus, verificationStatus));
     }
 
     /**
@@ -85,50 +101,99 @@ public class AttendanceUpdateService {
     }
 
     /**
-     * Logs individual proximity detection during verification
+     * Logs the raw proximity detections of a verification together with its summary in a single round trip
+     */
+    public Mono<ProximityVerificationResponseDTO> logProximityVerification(
+            ProximityVerificationRequestDTO request,
+            ProximityVerificationResponseDTO response) {
+        List<ProximityDetectionDTO> detections = request.getProximityDetections();
+        List<ProximityVerificationLog> logEntries = new ArrayList<>(detections.size() + 1);
+        for (ProximityDetectionDTO detection : detections) {
+            logEntries.add(buildDetectionLog(detection, request));
+        }
+        ProximityVerificationLog summaryLog = buildSummaryLog(request, response, detections.getFirst());
+        logEntries.add(summaryLog);
+
+        log.debug("Logging {} proximity detections and summary for student [{}]", detections.size(), request.getStudentIndex());
+        return proximityVerificationBatchRepository.insertAll(logEntries)
+                .then(updateRollups(summaryLog))
+                .then(Mono.just(response));
+    }
+
+    /**
+     * Logs a chunk of raw proximity detections of a verification that is still in progress
+     */
+    public Mono<Void> logProximityDetections(ProximityVerificationRequestDTO request, List<ProximityDetectionDTO> detections) {
+        List<ProximityVerificationLog> logEntries = new ArrayList<>(detections.size());
+        for (ProximityDetectionDTO detection : detections) {
+            logEntries.add(buildDetectionLog(detection, request));
+        }
+        return proximityVerificationBatchRepository.insertAll(logEntries).then();
+    }
+
+    /**
+     * Logs proximity verification summary results
+     */
+    public Mono<ProximityVerificationResponseDTO> logProximityVerificationSummary(
+            ProximityVerificationRequestDTO request,
+            ProximityVerificationResponseDTO response,
+            ProximityDetectionDTO firstDetection) {
+        ProximityVerificationLog summaryLog = buildSummaryLog(request, response, firstDetection);
+        return proximityVerificationBatchRepository.insertAll(List.of(summaryLog))
+                .then(updateRollups(summaryLog))
+                .then(Mono.just(response));
+    }
+
+    /**
+     * Adds a verification summary to the room analytics rollups
+     */
+    private Mono<Void> updateRollups(ProximityVerificationLog summaryLog) {
+        if (summaryLog.getDetectedRoomId() == null) {
+            return Mono.empty();
+        }
+        return proximityRollupRepository.recordVerification(summaryLog.getDetectedRoomId(),
+                summaryLog.getVerificationTimestamp(), summaryLog.getVerificationStatus(), summaryLog.getEstimatedDistance());
+    }
+
+    /**
+     * Builds the log entry of an individual proximity detection during verification
      */
-    public Mono<Void> logProximityDetection(ProximityDetectionDTO detection, Integer attendanceId) {
-        log.debug("Logging proximity detection for student [{}]: {} at {}m for attendance ID [{}], beaconType=[{}]",
-                detection.getStudentIndex(), detection.getProximityLevel(), detection.getEstimatedDistance(), attendanceId, detection.getBeaconType());
-        ProximityVerificationLog logEntry = ProximityVerificationLog.builder()
-                .studentAttendanceId(attendanceId)
-                .studentIndex(detection.getStudentIndex())
+    private ProximityVerificationLog buildDetectionLog(ProximityDetectionDTO detection, ProximityVerificationRequestDTO request) {
+        return ProximityVerificationLog.builder()
+                .studentAttendanceId(request.getAttendanceId())
+                .studentIndex(request.getStudentIndex())
                 .beaconDeviceId(detection.getBeaconDeviceId())
                 .detectedRoomId(detection.getDetectedRoomId())
                 .rssi(detection.getRssi())
+                .proximityLevel(ProximityLevel.fromString(detection.getProximityLevel()))
                 .estimatedDistance(detection.getEstimatedDistance())
                 .verificationTimestamp(detection.getDetectionTimestamp())
                 .verificationStatus(ProximityVerificationStatus.ONGOING)
                 .beaconType(detection.getBeaconType())
-                .sessionToken(detection.getSessionToken())
+                .sessionToken(request.getSessionToken())
                 .build();
-        return proximityVerificationRepository.save(logEntry).then();
     }
 
     /**
-     * Logs proximity verification summary results
+     * Builds the log entry of the proximity verification summary results
      */
-    public Mono<ProximityVerificationResponseDTO> logProximityVerificationSummary(
-            ProximityVerificationRequestDTO request,
-            ProximityVerificationResponseDTO response) {
-        ProximityDetectionDTO firstDetection = request.getProximityDetections().getFirst();
-        log.debug("Logging proximity summary for student [{}]: beaconType=[{}]",
-                request.getStudentIndex(), firstDetection.getBeaconType());
-        ProximityVerificationLog summaryLog = ProximityVerificationLog.builder()
+    private ProximityVerificationLog buildSummaryLog(ProximityVerificationRequestDTO request,
+                                                    ProximityVerificationResponseDTO response,
+                                                    ProximityDetectionDTO firstDetection) {
+        return ProximityVerificationLog.builder()
                 .studentAttendanceId(request.getAttendanceId())
                 .studentIndex(request.getStudentIndex())
                 .beaconDeviceId(firstDetection.getBeaconDeviceId())
                 .detectedRoomId(response.getDetectedRoomId())
                 .expectedRoomId(response.getExpectedRoomId())
-                .estimatedDistance(response.getAverageDistance())
+                .estimatedDistance(Double.valueOf(Double.MAX_VALUE).equals(response.getAverageDistance()) ? null : response.getAverageDistance())
                 .verificationTimestamp(LocalDateTime.now())
                 .verificationDurationSeconds(request.getVerificationDurationSeconds())
                 .sessionToken(request.getSessionToken())
                 .rssi(firstDetection.getRssi())
-                .proximityLevel(ProximityLevel.valueOf(firstDetection.getProximityLevel()))
+                .proximityLevel(ProximityLevel.fromString(firstDetection.getProximityLevel()))
                 .verificationStatus(ProximityVerificationStatus.valueOf(response.getVerificationStatus()))
                 .beaconType(firstDetection.getBeaconType())
                 .build();
-        return proximityVerificationRepository.save(summaryLog).then(Mono.just(response));
     }
 }
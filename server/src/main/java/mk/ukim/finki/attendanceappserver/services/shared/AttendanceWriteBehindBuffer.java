@@ -0,0 +1,185 @@
+package mk.ukim.finki.attendanceappserver.services.shared;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import mk.ukim.finki.attendanceappserver.config.AttendanceWriteBehindProperties;
+import mk.ukim.finki.attendanceappserver.domain.repositories.StudentAttendanceBatchRepository;
+import mk.ukim.finki.attendanceappserver.domain.repositories.StudentAttendanceBatchRepository.AttendanceUpsert;
+import mk.ukim.finki.attendanceappserver.domain.repositories.StudentAttendanceRepository;
+import mk.ukim.finki.attendanceappserver.dto.db.UpsertedAttendance;
+import mk.ukim.finki.attendanceappserver.exceptions.AttendanceException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Optional write-behind buffer for attendance registrations.
+ * Validated registrations are queued in a bounded in-process buffer and flushed as multi-row upserts every
+ * few milliseconds or every N records; each caller's Mono completes with its real ID once its batch commits.
+ * When the buffer is full the registration is persisted directly instead of being rejected.
+ * If the flusher fails, the registrations still waiting are failed and a new flusher is started.
+ */
+@Slf4j
+@Component
+public class AttendanceWriteBehindBuffer {
+
+    private static final Duration EMIT_RETRY_DURATION = Duration.ofMillis(5);
+
+    private final StudentAttendanceRepository studentAttendanceRepository;
+    private final StudentAttendanceBatchRepository studentAttendanceBatchRepository;
+    private final AttendanceWriteBehindProperties properties;
+    private final Set<PendingRegistration> pending = ConcurrentHashMap.newKeySet();
+
+    private volatile Sinks.Many<PendingRegistration> registrations;
+    private volatile boolean stopped;
+
+    public AttendanceWriteBehindBuffer(StudentAttendanceRepository studentAttendanceRepository,
+                                       StudentAttendanceBatchRepository studentAttendanceBatchRepository,
+                                       AttendanceWriteBehindProperties properties) {
+        this.studentAttendanceRepository = studentAttendanceRepository;
+        this.studentAttendanceBatchRepository = studentAttendanceBatchRepository;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        log.info("Attendance write-behind enabled with batches of up to {} registrations every {} ms",
+                properties.getMaxBatchSize(), properties.getFlushIntervalMillis());
+        startFlusher();
+    }
+
+    @PreDestroy
+    void stop() {
+        stopped = true;
+        // Completing the sink flushes the registrations which are still buffered
+        if (registrations != null) {
+            registrations.tryEmitComplete();
+            log.info("Attendance write-behind buffer stopped");
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Queues a registration for the next batch
+     *
+     * @param studentIndex The index of the student
+     * @param professorClassSessionId The ID of the class session
+     * @return A Mono containing the attendance record once its batch is committed
+     */
+    public Mono<UpsertedAttendance> submit(String studentIndex, int professorClassSessionId) {
+        return Mono.defer(() -> {
+            var registration = new AttendanceUpsert(studentIndex, professorClassSessionId, LocalDateTime.now());
+            var sink = registrations;
+            var pendingRegistration = new PendingRegistration(registration, Sinks.one(), sink);
+
+            // Registered before it is emitted, so a failing flusher cannot miss it
+            pending.add(pendingRegistration);
+            Sinks.EmitResult result = emit(sink, pendingRegistration);
+            if (result.isFailure()) {
+                pending.remove(pendingRegistration);
+                log.warn("Attendance write-behind buffer rejected registration for student [{}] ({}), persisting directly",
+                        studentIndex, result);
+                return studentAttendanceRepository.upsertAttendance(studentIndex, professorClassSessionId, registration.arrivalTime());
+            }
+            return pendingRegistration.result().asMono();
+        });
+    }
+
+    private void startFlusher() {
+        Sinks.Many<PendingRegistration> sink = Sinks.many().unicast()
+                .onBackpressureBuffer(Queues.<PendingRegistration>get(properties.getBufferCapacity()).get());
+        registrations = sink;
+
+        // A prefetch of one keeps at most one batch in flight, so a slow database fills the bounded buffer;
+        // the fair variant of bufferTimeout holds a timed-out batch back until the previous flush completes
+        sink.asFlux()
+                .bufferTimeout(properties.getMaxBatchSize(), Duration.ofMillis(properties.getFlushIntervalMillis()), true)
+                .concatMap(this::flush, 1)
+                .subscribe(null, error -> restartFlusher(sink, error));
+    }
+
+    private void restartFlusher(Sinks.Many<PendingRegistration> sink, Throwable error) {
+        log.error("Attendance write-behind flusher failed, restarting it: {}", error.getMessage());
+        // Terminate the failed sink first, so nothing can be emitted into it any more
+        sink.tryEmitError(error);
+        if (!stopped) {
+            startFlusher();
+        }
+        // Registrations buffered by the failed flusher are lost with it; their callers get an error to retry
+        var failure = new AttendanceException("Attendance registration was not persisted, please try again.");
+        pending.stream()
+                .filter(pendingRegistration -> pendingRegistration.sink() == sink)
+                .forEach(pendingRegistration -> fail(pendingRegistration, failure));
+    }
+
+    private static Sinks.EmitResult emit(Sinks.Many<PendingRegistration> sink, PendingRegistration pendingRegistration) {
+        // Concurrent submits retry for a bounded time instead of spinning on the event loop indefinitely
+        Sinks.EmitFailureHandler retry = Sinks.EmitFailureHandler.busyLooping(EMIT_RETRY_DURATION);
+        Sinks.EmitResult result;
+        do {
+            result = sink.tryEmitNext(pendingRegistration);
+        } while (result == Sinks.EmitResult.FAIL_NON_SERIALIZED && retry.onEmitFailure(SignalType.ON_NEXT, result));
+        return result;
+    }
+
+    private Mono<Void> flush(List<PendingRegistration> batch) {
+        log.debug("Flushing {} buffered attendance registrations", batch.size());
+
+        return studentAttendanceBatchRepository.upsertAll(batch.stream().map(PendingRegistration::registration).toList())
+                .collectMap(UpsertedAttendance::key, Function.identity())
+                .doOnNext(upserted -> completeBatch(batch, upserted))
+                .doOnError(error -> {
+                    log.error("Failed to flush {} buffered attendance registrations: {}", batch.size(), error.getMessage());
+                    batch.forEach(pendingRegistration -> fail(pendingRegistration, error));
+                })
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    private void completeBatch(List<PendingRegistration> batch, Map<String, UpsertedAttendance> upserted) {
+        // Duplicate registrations share a row; only the first of them reports it as inserted
+        Set<String> completedKeys = new HashSet<>();
+        for (PendingRegistration pendingRegistration : batch) {
+            String key = pendingRegistration.registration().key();
+            UpsertedAttendance attendance = upserted.get(key);
+            if (attendance == null) {
+                fail(pendingRegistration, new AttendanceException("Attendance record was not persisted."));
+            } else if (completedKeys.add(key)) {
+                complete(pendingRegistration, attendance);
+            } else {
+                complete(pendingRegistration, attendance.toBuilder().inserted(false).build());
+            }
+        }
+    }
+
+    private void complete(PendingRegistration pendingRegistration, UpsertedAttendance attendance) {
+        pending.remove(pendingRegistration);
+        pendingRegistration.result().tryEmitValue(attendance);
+    }
+
+    private void fail(PendingRegistration pendingRegistration, Throwable error) {
+        pending.remove(pendingRegistration);
+        pendingRegistration.result().tryEmitError(error);
+    }
+
+    private record PendingRegistration(AttendanceUpsert registration, Sinks.One<UpsertedAttendance> result,
+                                       Sinks.Many<PendingRegistration> sink) {}
+}
@@ -0,0 +1,93 @@
+package mk.ukim.finki.attendanceappserver.services.shared;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import mk.ukim.finki.attendanceappserver.domain.enums.QRCodeFormat;
+import mk.ukim.finki.attendanceappserver.dto.PresentationFrameDTO;
+import mk.ukim.finki.attendanceappserver.services.QRCodeGeneratorService;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pushes the QR code frames of presentation pages to the projectors showing them.
+ * Each class session has one shared stream that renders a frame once per token rotation and fans it out
+ * to every viewer; it runs only while someone is watching and replays the current frame to new viewers.
+ */
+@Slf4j
+@Component
+public class PresentationFrameBroadcaster {
+
+    private final QRCodeGeneratorService qrCodeGeneratorService;
+    private final Map<FrameKey, Flux<PresentationFrameDTO>> streams = new ConcurrentHashMap<>();
+
+    public PresentationFrameBroadcaster(QRCodeGeneratorService qrCodeGeneratorService, MeterRegistry meterRegistry) {
+        this.qrCodeGeneratorService = qrCodeGeneratorService;
+        Gauge.builder("presentation.streams", streams, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Retrieves the frame stream of a presentation, joining the stream already running for its class session
+     *
+     * @param professorClassSessionId The ID of the class session
+     * @param issuedToken The token issued when the presentation was created
+     * @return A Flux emitting the current frame, then a new frame whenever the token rotates
+     */
+    public Flux<PresentationFrameDTO> frames(int professorClassSessionId, String issuedToken) {
+        int rotationSeconds = qrCodeGeneratorService.getTokenRotationSeconds();
+        // Rotating tokens are derived from the session alone, so all presentations of a session share one stream;
+        // otherwise every presentation shows its own issued token
+        FrameKey key = new FrameKey(professorClassSessionId, rotationSeconds > 0 ? null : issuedToken);
+        return streams.computeIfAbsent(key, k -> share(k, render(professorClassSessionId, issuedToken, rotationSeconds)));
+    }
+
+    private Flux<PresentationFrameDTO> render(int professorClassSessionId, String issuedToken, int rotationSeconds) {
+        Flux<Long> ticks = rotationSeconds > 0
+                ? Flux.concat(Mono.just(0L), Flux.interval(untilNextRotation(rotationSeconds), Duration.ofSeconds(rotationSeconds)))
+                : Flux.just(0L);
+
+        return ticks
+                .map(tick -> qrCodeGeneratorService.getPresentedToken(professorClassSessionId, issuedToken))
+                .distinctUntilChanged()
+                .concatMap(token -> qrCodeGeneratorService.renderQRCode(token, QRCodeFormat.SVG, 0)
+                        .map(svg -> PresentationFrameDTO.builder()
+                                .svg(new String(svg, StandardCharsets.UTF_8))
+                                .rotationSeconds(rotationSeconds)
+                                .timestamp(LocalDateTime.now())
+                                .build())
+                        // A failed render skips one frame instead of ending the stream for every viewer;
+                        // the previous token stays valid through the grace windows
+                        .onErrorResume(error -> {
+                            log.warn("Error rendering presentation frame for session [{}]: {}", professorClassSessionId, error.getMessage());
+                            return Mono.empty();
+                        }));
+    }
+
+    private Flux<PresentationFrameDTO> share(FrameKey key, Flux<PresentationFrameDTO> frames) {
+        AtomicReference<Flux<PresentationFrameDTO>> self = new AtomicReference<>();
+        Flux<PresentationFrameDTO> shared = frames
+                .doOnSubscribe(subscription -> log.debug("Started presentation stream for session [{}]", key.professorClassSessionId()))
+                // Stops once the last viewer leaves; the next viewer starts a fresh stream
+                .doFinally(signal -> streams.remove(key, self.get()))
+                .replay(1)
+                .refCount();
+        self.set(shared);
+        return shared;
+    }
+
+    private static Duration untilNextRotation(int rotationSeconds) {
+        // Aligned with the token windows, which start at multiples of the rotation interval since the epoch
+        long periodMillis = rotationSeconds * 1000L;
+        return Duration.ofMillis(periodMillis - System.currentTimeMillis() % periodMillis);
+    }
+
+    private record FrameKey(int professorClassSessionId, String issuedToken) {}
+}
@@ -2,11 +2,12 @@ package mk.ukim.finki.attendanceappserver.services.shared;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import mk.ukim.finki.attendanceappserver.domain.enums.ProximityLevel;
 import mk.ukim.finki.attendanceappserver.domain.enums.ProximityVerificationStatus;
 import mk.ukim.finki.attendanceappserver.dto.ProximityDetectionDTO;
 import mk.ukim.finki.attendanceappserver.dto.ProximityVerificationRequestDTO;
 import mk.ukim.finki.attendanceappserver.dto.ProximityVerificationResponseDTO;
+import mk.ukim.finki.attendanceappserver.services.cache.BeaconRegistry;
+import mk.ukim.finki.attendanceappserver.services.cache.ProximityCalibrationCache;
 import mk.ukim.finki.attendanceappserver.util.ProximityConstants;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
@@ -22,6 +23,12 @@ import java.util.List;
 @AllArgsConstructor
 public class ProximityAnalysisService {
 
+    private static final String DEDICATED_BEACON_TYPE = "DEDICATED";
+    private static final String PROFESSOR_PHONE_BEACON_TYPE = "PROFESSOR_PHONE";
+
+    private final BeaconRegistry beaconRegistry;
+    private final ProximityCalibrationCache proximityCalibrationCache;
+
     /**
      * Analyzes proximity detections and returns verification response
      */
@@ -31,116 +38,152 @@ public class ProximityAnalysisService {
         if (detections.isEmpty()) {
             return Mono.error(new IllegalArgumentException("No proximity detections provided"));
         }
+        if (request.getExpectedRoomId() == null) {
+            return Mono.error(new IllegalArgumentException("No expected room provided"));
+        }
 
-        // Calculate verification metrics
-        long validDetections = countValidDetections(detections);
-        long idealDetections = countIdealDetections(detections);
-        long wrongRoomDetections = countWrongRoomDetections(detections, request.getExpectedRoomId());
-        long outOfRangeDetections = countOutOfRangeDetections(detections);
-        double averageDistance = calculateAverageDistance(detections);
+        // Calculate verification metrics in a single pass
+        ProximityDetectionAccumulator accumulator = newAccumulator(request.getExpectedRoomId());
+        for (ProximityDetectionDTO detection : detections) {
+            accumulate(accumulator, detection);
+        }
 
-        // Evaluate verification conditions
-        VerificationResult result = evaluateVerification(
-            detections.size(), validDetections, idealDetections, wrongRoomDetections,
-            outOfRangeDetections, averageDistance);
+        return Mono.just(evaluate(accumulator));
+    }
 
-        return Mono.just(buildVerificationResponse(detections, request, result, averageDistance, validDetections));
+    /**
+     * Creates an accumulator for a verification in the given room, using the room's calibrated thresholds if any
+     */
+    public ProximityDetectionAccumulator newAccumulator(String expectedRoomId) {
+        return new ProximityDetectionAccumulator(expectedRoomId, proximityCalibrationCache.find(expectedRoomId));
     }
 
     /**
-     * Validates proximity verification request
+     * Folds a detection into the accumulator, deciding from the beacon registry whether the device's report is trusted.
+     * A registered dedicated beacon's room replaces the room reported by the device; a dedicated beacon missing from
+     * the registry is untrusted. The professor's phone only counts in rooms without registered beacons, since the
+     * beacon type is reported by the device itself. Detections of any other beacon type are never trusted.
+     * Until the registry is loaded, dedicated beacons and the professor's phone are taken as reported.
      */
-    public Mono<Boolean> validateProximityRequest(ProximityVerificationRequestDTO request) {
-        if (request.getProximityDetections() == null || request.getProximityDetections().isEmpty()) {
-            return Mono.error(new IllegalArgumentException("No proximity detections provided"));
+    public void accumulate(ProximityDetectionAccumulator accumulator, ProximityDetectionDTO detection) {
+        String beaconType = detection.getBeaconType();
+        if (DEDICATED_BEACON_TYPE.equals(beaconType)) {
+            accumulateDedicated(accumulator, detection);
+        } else if (PROFESSOR_PHONE_BEACON_TYPE.equals(beaconType)) {
+            boolean trusted = !beaconRegistry.hasBeacons(detection.getDetectedRoomId());
+            if (!trusted) {
+                log.debug("Professor phone detection for student [{}] is not trusted in room [{}], which has registered beacons",
+                        detection.getStudentIndex(), detection.getDetectedRoomId());
+            }
+            accumulator.add(detection, detection.getDetectedRoomId(), trusted);
+        } else {
+            log.debug("Detection of unknown beacon type [{}] for student [{}] is not trusted", beaconType, detection.getStudentIndex());
+            accumulator.add(detection, detection.getDetectedRoomId(), false);
         }
+    }
 
-        if (request.getVerificationDurationSeconds() != null &&
-            (request.getVerificationDurationSeconds() < ProximityConstants.MIN_VERIFICATION_DURATION ||
-             request.getVerificationDurationSeconds() > ProximityConstants.MAX_VERIFICATION_DURATION)) {
-            return Mono.error(new IllegalArgumentException(
-                String.format("Invalid verification duration. Must be between %d-%d seconds",
-                    ProximityConstants.MIN_VERIFICATION_DURATION, ProximityConstants.MAX_VERIFICATION_DURATION)));
+    private void accumulateDedicated(ProximityDetectionAccumulator accumulator, ProximityDetectionDTO detection) {
+        if (!beaconRegistry.isLoaded()) {
+            accumulator.add(detection);
+            return;
         }
-        return Mono.just(true);
+
+        String registeredRoomId = beaconRegistry.findRoom(detection.getBeaconDeviceId());
+        if (registeredRoomId == null) {
+            log.debug("Detection of unregistered beacon [{}] for student [{}] is not trusted",
+                    detection.getBeaconDeviceId(), detection.getStudentIndex());
+            accumulator.add(detection, detection.getDetectedRoomId(), false);
+            return;
+        }
+        if (!registeredRoomId.equals(detection.getDetectedRoomId())) {
+            log.debug("Beacon [{}] reported room [{}] but is registered in [{}]",
+                    detection.getBeaconDeviceId(), detection.getDetectedRoomId(), registeredRoomId);
+        }
+        accumulator.add(detection, registeredRoomId, true);
     }
 
     /**
-     * Counts detections within acceptable range (NEAR, MEDIUM, FAR)
-     * Excludes OUT_OF_RANGE detections
+     * Evaluates the detections accumulated so far as a complete verification
      */
-    private long countValidDetections(List<ProximityDetectionDTO> detections) {
-        return detections.stream()
-                .filter(d -> ProximityLevel.NEAR.name().equals(d.getProximityLevel()) ||
-                           ProximityLevel.MEDIUM.name().equals(d.getProximityLevel()) ||
-                           ProximityLevel.FAR.name().equals(d.getProximityLevel()))
-                .count();
+    public ProximityVerificationResponseDTO evaluate(ProximityDetectionAccumulator accumulator) {
+        return buildVerificationResponse(accumulator, evaluateVerification(accumulator));
     }
 
     /**
-     * Counts detections in ideal range (NEAR, MEDIUM)
-     * These are preferred for attendance verification
+     * Evaluates a verification whose detections are still arriving.
+     * A detection in the wrong room decides it immediately; success is decided once the detections span the
+     * minimum verification duration. Failures are only decided at the end, since later detections can still
+     * raise the valid ratio.
+     *
+     * @return The verification response, or null when the outcome is not conclusive yet
      */
-    private long countIdealDetections(List<ProximityDetectionDTO> detections) {
-        return detections.stream()
-                .filter(d -> ProximityLevel.NEAR.name().equals(d.getProximityLevel()) ||
-                           ProximityLevel.MEDIUM.name().equals(d.getProximityLevel()))
-                .count();
+    public ProximityVerificationResponseDTO evaluateIfConclusive(ProximityDetectionAccumulator accumulator) {
+        if (accumulator.getTotalDetections() == 0) {
+            return null;
+        }
+        if (accumulator.getWrongRoomDetections() > 0) {
+            return evaluate(accumulator);
+        }
+        if (accumulator.getObservedDuration().getSeconds() < ProximityConstants.MIN_VERIFICATION_DURATION) {
+            return null;
+        }
+        VerificationResult result = evaluateVerification(accumulator);
+        return result.success ? buildVerificationResponse(accumulator, result) : null;
     }
 
     /**
-     * Counts detections that are out of reasonable classroom range
+     * Validates proximity verification request
      */
-    private long countOutOfRangeDetections(List<ProximityDetectionDTO> detections) {
-        return detections.stream()
-                .filter(d -> ProximityLevel.OUT_OF_RANGE.name().equals(d.getProximityLevel()))
-                .count();
-    }
+    public Mono<Boolean> validateProximityRequest(ProximityVerificationRequestDTO request) {
+        if (request.getProximityDetections() == null || request.getProximityDetections().isEmpty()) {
+            return Mono.error(new IllegalArgumentException("No proximity detections provided"));
+        }
 
-    private long countWrongRoomDetections(List<ProximityDetectionDTO> detections, String expectedRoomId) {
-        return detections.stream()
-                .filter(d -> !expectedRoomId.equals(d.getDetectedRoomId()))
-                .count();
-    }
+        if (request.getExpectedRoomId() == null) {
+            return Mono.error(new IllegalArgumentException("No expected room provided"));
+        }
 
-    private double calculateAverageDistance(List<ProximityDetectionDTO> detections) {
-        return detections.stream()
-                .mapToDouble(ProximityDetectionDTO::getEstimatedDistance)
-                .average()
-                .orElse(Double.MAX_VALUE);
+        if (request.getVerificationDurationSeconds() != null &&
+            (request.getVerificationDurationSeconds() < ProximityConstants.MIN_VERIFICATION_DURATION ||
+             request.getVerificationDurationSeconds() > ProximityConstants.MAX_VERIFICATION_DURATION)) {
+            return Mono.error(new IllegalArgumentException(
+                String.format("Invalid verification duration. Must be between %d-%d seconds",
+                    ProximityConstants.MIN_VERIFICATION_DURATION, ProximityConstants.MAX_VERIFICATION_DURATION)));
+        }
+        return Mono.just(true);
     }
 
     /**
      * Enhanced verification logic that considers all proximity levels
      */
-    private VerificationResult evaluateVerification(int totalDetections, long validDetections,
-                                                  long idealDetections, long wrongRoomDetections,
-                                                  long outOfRangeDetections, double averageDistance) {
+    private VerificationResult evaluateVerification(ProximityDetectionAccumulator accumulator) {
+        int totalDetections = accumulator.getTotalDetections();
+        double averageDistance = accumulator.getAverageDistance();
 
         // Check for wrong room first
-        if (wrongRoomDetections > 0) {
+        if (accumulator.getWrongRoomDetections() > 0) {
             return new VerificationResult(false, ProximityVerificationStatus.WRONG_ROOM, "Student detected in wrong classroom");
         }
 
         // Check if too many out of range detections
-        double outOfRangeRatio = (double) outOfRangeDetections / totalDetections;
+        double outOfRangeRatio = (double) accumulator.getOutOfRangeDetections() / totalDetections;
         if (outOfRangeRatio > ProximityConstants.OUT_OF_RANGE_THRESHOLD) {
             return new VerificationResult(false, ProximityVerificationStatus.FAILED, "Too many out-of-range detections - student likely not in classroom");
         }
 
         // Check if sufficient valid detections
-        double validRatio = (double) validDetections / totalDetections;
+        double validRatio = (double) accumulator.getValidDetections() / totalDetections;
         if (validRatio < ProximityConstants.PROXIMITY_SUCCESS_THRESHOLD) {
             return new VerificationResult(false, ProximityVerificationStatus.FAILED, "Insufficient proximity readings during verification period");
         }
 
-        // Check average distance - allow up to configured maximum for large lecture halls
-        if (averageDistance > ProximityConstants.MAX_DISTANCE_THRESHOLD) {
+        // Check average distance - allow up to configured (or the room's calibrated) maximum for large lecture halls
+        if (averageDistance > accumulator.getMaxDistanceThreshold()) {
             return new VerificationResult(false, ProximityVerificationStatus.FAILED, "Average distance too far from beacon");
         }
 
         // Determine success level based on proximity quality
-        double idealRatio = (double) idealDetections / totalDetections;
+        double idealRatio = (double) accumulator.getIdealDetections() / totalDetections;
         if (idealRatio >= ProximityConstants.IDEAL_RATIO_THRESHOLD) {
             return new VerificationResult(true, ProximityVerificationStatus.SUCCESS, null);
         } else {
@@ -149,21 +192,17 @@ public class ProximityAnalysisService {
         }
     }
 
-    private ProximityVerificationResponseDTO buildVerificationResponse(
-            List<ProximityDetectionDTO> detections,
-            ProximityVerificationRequestDTO request,
-            VerificationResult result,
-            double averageDistance,
-            long validDetections) {
-
+    private ProximityVerificationResponseDTO buildVerificationResponse(ProximityDetectionAccumulator accumulator,
+                                                                       VerificationResult result) {
         ProximityVerificationResponseDTO response = new ProximityVerificationResponseDTO();
-        response.setTotalDetections(detections.size());
-        response.setValidDetections((int) validDetections);
-        response.setAverageDistance(averageDistance);
-        response.setDetectedRoomId(detections.getFirst().getDetectedRoomId());
-        response.setExpectedRoomId(request.getExpectedRoomId());
-        response.setVerificationStartTime(detections.getFirst().getDetectionTimestamp());
-        response.setVerificationEndTime(detections.getLast().getDetectionTimestamp());
+        response.setTotalDetections(accumulator.getTotalDetections());
+        response.setValidDetections(accumulator.getValidDetections());
+        response.setAverageDistance(accumulator.getAverageDistance());
+        response.setDetectedRoomId(accumulator.getFirstDetectedRoomId());
+        response.setOccupiedRoomId(accumulator.getFirstValidRoomId());
+        response.setExpectedRoomId(accumulator.getExpectedRoomId());
+        response.setVerificationStartTime(accumulator.getFirstDetectionTimestamp());
+        response.setVerificationEndTime(accumulator.getLastDetectionTimestamp());
         response.setVerificationSuccess(result.success);
         response.setVerificationStatus(result.status.name());
         response.setFailureReason(result.failureReason);
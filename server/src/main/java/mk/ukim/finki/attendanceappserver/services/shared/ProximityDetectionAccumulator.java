@@ -0,0 +1,148 @@
+package mk.ukim.finki.attendanceappserver.services.shared;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import mk.ukim.finki.attendanceappserver.domain.enums.ProximityLevel;
+import mk.ukim.finki.attendanceappserver.dto.ProximityDetectionDTO;
+import mk.ukim.finki.attendanceappserver.dto.db.ProximityRoomCalibration;
+import mk.ukim.finki.attendanceappserver.util.ProximityConstants;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Running verification metrics of one student's proximity detections.
+ * Each detection is folded in once, parsing its proximity level a single time, so the metrics can be
+ * computed in one pass over a complete list or incrementally while detections are still arriving.
+ * When the expected room is calibrated, levels are derived from the RSSI with the room's thresholds instead of
+ * taken from the level reported by the device.
+ * Not thread-safe; one accumulator belongs to one verification.
+ */
+@Getter
+public final class ProximityDetectionAccumulator {
+
+    private final String expectedRoomId;
+    private final ProximityRoomCalibration calibration;
+
+    private int totalDetections;
+    private int validDetections;        // NEAR, MEDIUM or FAR
+    private int idealDetections;        // NEAR or MEDIUM
+    private int outOfRangeDetections;
+    private int wrongRoomDetections;
+    private int untrustedDetections;    // Unregistered dedicated beacon, or a beacon type not accepted in the room
+
+    @Getter(AccessLevel.NONE)
+    private int distanceCount;
+    @Getter(AccessLevel.NONE)
+    private double distanceSum;
+
+    private String firstDetectedRoomId;
+    private String firstValidRoomId;    // Room of the first trusted detection within range
+    private LocalDateTime firstDetectionTimestamp;
+    private LocalDateTime lastDetectionTimestamp;
+
+    public ProximityDetectionAccumulator(String expectedRoomId) {
+        this(expectedRoomId, null);
+    }
+
+    public ProximityDetectionAccumulator(String expectedRoomId, ProximityRoomCalibration calibration) {
+        if (expectedRoomId == null) {
+            throw new IllegalArgumentException("Expected room ID is required for proximity verification");
+        }
+        this.expectedRoomId = expectedRoomId;
+        this.calibration = calibration;
+    }
+
+    /**
+     * Folds a single detection into the metrics, trusting the room it reports
+     *
+     * @param detection The proximity detection
+     */
+    public void add(ProximityDetectionDTO detection) {
+        add(detection, detection.getDetectedRoomId(), true);
+    }
+
+    /**
+     * Folds a single detection into the metrics
+     *
+     * @param detection The proximity detection
+     * @param roomId The room the detection is attributed to
+     * @param trusted Whether the beacon is known; untrusted detections count towards the total but are never valid
+     */
+    public void add(ProximityDetectionDTO detection, String roomId, boolean trusted) {
+        if (totalDetections == 0) {
+            firstDetectedRoomId = roomId;
+            firstDetectionTimestamp = detection.getDetectionTimestamp();
+        }
+        lastDetectionTimestamp = detection.getDetectionTimestamp();
+        totalDetections++;
+        if (!trusted) {
+            untrustedDetections++;
+            return;
+        }
+
+        ProximityLevel level = calibration != null && detection.getRssi() != null
+                ? calibratedLevel(detection.getRssi())
+                : ProximityLevel.fromString(detection.getProximityLevel());
+        if (level != null) {
+            switch (level) {
+                case NEAR, MEDIUM -> {
+                    validDetections++;
+                    idealDetections++;
+                }
+                case FAR -> validDetections++;
+                case OUT_OF_RANGE -> outOfRangeDetections++;
+            }
+            if (firstValidRoomId == null && level != ProximityLevel.OUT_OF_RANGE) {
+                firstValidRoomId = roomId;
+            }
+        }
+
+        if (!expectedRoomId.equals(roomId)) {
+            wrongRoomDetections++;
+        }
+
+        Double distance = detection.getEstimatedDistance();
+        if (distance != null) {
+            distanceSum += distance;
+            distanceCount++;
+        }
+    }
+
+    /**
+     * @return The average estimated distance, or Double.MAX_VALUE when no detection reported one
+     */
+    public double getAverageDistance() {
+        return distanceCount == 0 ? Double.MAX_VALUE : distanceSum / distanceCount;
+    }
+
+    /**
+     * @return The maximum average distance of a successful verification in the expected room
+     */
+    public double getMaxDistanceThreshold() {
+        return calibration != null ? calibration.getMaxDistanceThreshold() : ProximityConstants.MAX_DISTANCE_THRESHOLD;
+    }
+
+    /**
+     * @return The time between the first and the last detection, as reported by the device
+     */
+    public Duration getObservedDuration() {
+        if (firstDetectionTimestamp == null || lastDetectionTimestamp == null) {
+            return Duration.ZERO;
+        }
+        return Duration.between(firstDetectionTimestamp, lastDetectionTimestamp);
+    }
+
+    private ProximityLevel calibratedLevel(int rssi) {
+        if (rssi > calibration.getNearRssiThreshold()) {
+            return ProximityLevel.NEAR;
+        }
+        if (rssi > calibration.getMediumRssiThreshold()) {
+            return ProximityLevel.MEDIUM;
+        }
+        if (rssi > calibration.getFarRssiThreshold()) {
+            return ProximityLevel.FAR;
+        }
+        return ProximityLevel.OUT_OF_RANGE;
+    }
+}
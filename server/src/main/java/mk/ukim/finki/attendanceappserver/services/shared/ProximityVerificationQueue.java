@@ -0,0 +1,138 @@
+package mk.ukim.finki.attendanceappserver.services.shared;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import mk.ukim.finki.attendanceappserver.config.ProximityVerificationQueueProperties;
+import mk.ukim.finki.attendanceappserver.dto.ProximityVerificationRequestDTO;
+import mk.ukim.finki.attendanceappserver.services.ProximityVerificationService;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Optional background processing of the proximity verifications sent with attendance registrations.
+ * Verifications wait in a bounded in-process queue and are drained by a fixed number of concurrent workers;
+ * the resulting status change reaches clients through the attendance events or by polling the attendance record.
+ * The queue is in memory only: a verification lost on a crash leaves the attendance pending verification,
+ * which the client can retry through the proximity verification endpoint.
+ * Queue size, in-flight verifications and outcomes are published as metrics.
+ */
+@Slf4j
+@Component
+public class ProximityVerificationQueue {
+
+    private static final String METRIC_PREFIX = "proximity.verification.queue";
+    private static final Duration PROCESSING_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration EMIT_RETRY_DURATION = Duration.ofMillis(5);
+
+    private final ProximityVerificationService proximityVerificationService;
+    private final ProximityVerificationQueueProperties properties;
+    private final Queue<ProximityVerificationRequestDTO> queue;
+    private final Sinks.Many<ProximityVerificationRequestDTO> requests;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final CountDownLatch drained = new CountDownLatch(1);
+    private final Counter completed;
+    private final Counter failed;
+    private final Counter rejected;
+
+    private Disposable workers;
+
+    public ProximityVerificationQueue(ProximityVerificationService proximityVerificationService,
+                                      ProximityVerificationQueueProperties properties,
+                                      MeterRegistry meterRegistry) {
+        this.proximityVerificationService = proximityVerificationService;
+        this.properties = properties;
+        this.queue = Queues.<ProximityVerificationRequestDTO>get(properties.getQueueCapacity()).get();
+        this.requests = Sinks.many().unicast().onBackpressureBuffer(queue);
+
+        Gauge.builder(METRIC_PREFIX + ".size", queue, Queue::size).register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".inflight", inFlight, AtomicInteger::get).register(meterRegistry);
+        this.completed = Counter.builder(METRIC_PREFIX + ".processed").tag("outcome", "completed").register(meterRegistry);
+        this.failed = Counter.builder(METRIC_PREFIX + ".processed").tag("outcome", "failed").register(meterRegistry);
+        this.rejected = Counter.builder(METRIC_PREFIX + ".rejected").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        log.info("Asynchronous proximity verification enabled with a queue of {} and {} workers",
+                properties.getQueueCapacity(), properties.getWorkerConcurrency());
+
+        // flatMap only requests as many verifications as there are free workers, the rest wait in the bounded queue
+        workers = requests.asFlux()
+                .flatMap(this::process, properties.getWorkerConcurrency())
+                .doFinally(signal -> drained.countDown())
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        requests.tryEmitComplete();
+        if (workers == null) {
+            return;
+        }
+        if (!drained.await(properties.getShutdownTimeoutSeconds(), TimeUnit.SECONDS)) {
+            log.warn("Stopping with {} proximity verifications still queued", queue.size());
+            workers.dispose();
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Queues a proximity verification for background processing
+     *
+     * @param request The proximity verification request
+     * @return True when the verification was queued, false when the queue is full or stopped
+     */
+    public boolean submit(ProximityVerificationRequestDTO request) {
+        // Concurrent submits retry for a bounded time instead of spinning on the event loop indefinitely
+        Sinks.EmitFailureHandler retry = Sinks.EmitFailureHandler.busyLooping(EMIT_RETRY_DURATION);
+        Sinks.EmitResult result;
+        do {
+            result = requests.tryEmitNext(request);
+        } while (result == Sinks.EmitResult.FAIL_NON_SERIALIZED && retry.onEmitFailure(SignalType.ON_NEXT, result));
+
+        if (result.isFailure()) {
+            log.warn("Proximity verification queue rejected verification for student [{}] ({})",
+                    request.getStudentIndex(), result);
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private Mono<Void> process(ProximityVerificationRequestDTO request) {
+        return Mono.defer(() -> {
+                    inFlight.incrementAndGet();
+                    return proximityVerificationService.processProximityVerification(request);
+                })
+                .doOnSuccess(response -> completed.increment())
+                .doOnError(error -> failed.increment())
+                .doFinally(signal -> inFlight.decrementAndGet())
+                .then()
+                // The service already logs the failure; keep the workers running
+                .onErrorResume(error -> Mono.empty())
+                .timeout(PROCESSING_TIMEOUT, Mono.fromRunnable(() -> {
+                    failed.increment();
+                    log.warn("Proximity verification for attendance [{}] timed out", request.getAttendanceId());
+                }));
+    }
+}
@@ -0,0 +1,150 @@
+package mk.ukim.finki.attendanceappserver.services.shared;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import mk.ukim.finki.attendanceappserver.config.QRRenderProperties;
+import mk.ukim.finki.attendanceappserver.domain.enums.QRCodeFormat;
+import mk.ukim.finki.attendanceappserver.dto.QRCodeMatrixDTO;
+import mk.ukim.finki.attendanceappserver.util.BitMatrixPngEncoder;
+import mk.ukim.finki.attendanceappserver.util.BitMatrixSvgEncoder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders QR code images on a dedicated, bounded thread pool instead of the Netty event loop.
+ * Rendered images are cached per token, format and size; concurrent requests for the same image share one render.
+ * Queue depth, active renders, render time and cache statistics ("qrImages") are published as metrics.
+ */
+@Slf4j
+@Component
+public class QRCodeRenderer {
+
+    private static final String METRIC_PREFIX = "qr.render";
+    private static final String CACHE_NAME = "qrImages";
+    private static final int QUIET_ZONE_MODULES = 4; // QRCodeWriter's default margin
+
+    private final ThreadPoolExecutor executor;
+    private final AsyncCache<RenderKey, byte[]> cache;
+    private final Timer renderTimer;
+    private final Counter rejected;
+    private final ObjectMapper objectMapper;
+
+    public QRCodeRenderer(QRRenderProperties properties, MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        int threads = Math.max(properties.getThreads(), 1);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "qr-render-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheSize())
+                .expireAfterWrite(Duration.ofMinutes(properties.getCacheExpireMinutes()))
+                .recordStats()
+                .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder(METRIC_PREFIX + ".queue.size", executor, pool -> pool.getQueue().size()).register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        this.renderTimer = Timer.builder(METRIC_PREFIX + ".duration")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejected = Counter.builder(METRIC_PREFIX + ".rejected").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Renders a token as a square PNG QR code, or returns the cached image
+     *
+     * @param token The content of the QR code
+     * @param size The width and height of the image in pixels
+     * @return A Mono containing the PNG image
+     */
+    public Mono<byte[]> renderPng(String token, int size) {
+        return render(token, QRCodeFormat.PNG, size);
+    }
+
+    /**
+     * Renders a token as a QR code in the given format, or returns the cached rendering
+     *
+     * @param token The content of the QR code
+     * @param format The output format
+     * @param size The width and height in pixels; only used for PNG
+     * @return A Mono containing the rendered QR code, in the format's media type
+     */
+    public Mono<byte[]> render(String token, QRCodeFormat format, int size) {
+        // Vector and matrix output do not depend on the size, so they share one cache entry per token
+        RenderKey key = new RenderKey(token, format, format == QRCodeFormat.PNG ? size : 0);
+        // Cancelling one request must not cancel the render other requests for the same image are waiting on
+        return Mono.defer(() -> Mono.fromFuture(cache.get(key, this::renderAsync), true))
+                .onErrorMap(RejectedExecutionException.class, error -> {
+                    rejected.increment();
+                    log.warn("QR code render queue is full ({} waiting)", executor.getQueue().size());
+                    return new IllegalStateException("QR code rendering is overloaded, try again shortly", error);
+                });
+    }
+
+    private CompletableFuture<byte[]> renderAsync(RenderKey key) {
+        return CompletableFuture.supplyAsync(() -> renderTimer.record(() -> render(key)), executor);
+    }
+
+    private byte[] render(RenderKey key) {
+        try {
+            // Encoded at one pixel per module; the encoders scale the modules up themselves
+            var bitMatrix = new QRCodeWriter().encode(key.token(), BarcodeFormat.QR_CODE, 0, 0);
+            return switch (key.format()) {
+                case PNG -> BitMatrixPngEncoder.encode(bitMatrix, key.size());
+                case SVG -> BitMatrixSvgEncoder.encode(bitMatrix).getBytes(StandardCharsets.UTF_8);
+                case MATRIX -> objectMapper.writeValueAsBytes(toMatrix(bitMatrix));
+            };
+        } catch (WriterException | JsonProcessingException e) {
+            log.error("Error generating QR code image: {}", e.getMessage());
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static QRCodeMatrixDTO toMatrix(BitMatrix bitMatrix) {
+        List<String> rows = new ArrayList<>(bitMatrix.getHeight());
+        char[] row = new char[bitMatrix.getWidth()];
+        for (int y = 0; y < bitMatrix.getHeight(); y++) {
+            for (int x = 0; x < row.length; x++) {
+                row[x] = bitMatrix.get(x, y) ? '1' : '0';
+            }
+            rows.add(new String(row));
+        }
+        return new QRCodeMatrixDTO(bitMatrix.getWidth(), QUIET_ZONE_MODULES, rows);
+    }
+
+    private record RenderKey(String token, QRCodeFormat format, int size) {}
+}
@@ -0,0 +1,159 @@
+package mk.ukim.finki.attendanceappserver.services.shared;
+
+import lombok.extern.slf4j.Slf4j;
+import mk.ukim.finki.attendanceappserver.config.RoomOccupancyProperties;
+import mk.ukim.finki.attendanceappserver.dto.RoomOccupancyDTO;
+import mk.ukim.finki.attendanceappserver.util.HyperLogLog;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sliding-window estimate of the distinct students verified in each room, fed by ProximityVerificationService.
+ * Every room keeps a ring of HyperLogLog sketches, one per time bucket, so memory per room is constant
+ * however many students pass through; an estimate merges the buckets still inside the window.
+ */
+@Slf4j
+@Component
+public class RoomOccupancyTracker {
+
+    private final RoomOccupancyProperties properties;
+    private final Map<String, RoomWindow> rooms = new ConcurrentHashMap<>();
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final Flux<List<RoomOccupancyDTO>> updates;
+
+    public RoomOccupancyTracker(RoomOccupancyProperties properties) {
+        this.properties = properties;
+        this.bucketMillis = Duration.ofMinutes(Math.max(properties.getBucketMinutes(), 1)).toMillis();
+        this.bucketCount = Math.max(properties.getWindowMinutes() / Math.max(properties.getBucketMinutes(), 1), 1);
+        // One timer serves every subscriber; it only runs while someone is listening
+        this.updates = Flux.interval(Duration.ofSeconds(properties.getStreamIntervalSeconds()))
+                .map(tick -> estimateAll())
+                .share();
+    }
+
+    /**
+     * Counts a student as present in a room in the current time bucket
+     *
+     * @param roomId The ID of the room
+     * @param studentIndex The index of the student
+     */
+    public void record(String roomId, String studentIndex) {
+        if (roomId == null || studentIndex == null) {
+            return;
+        }
+        RoomWindow window = rooms.get(roomId);
+        if (window == null) {
+            if (rooms.size() >= properties.getMaxRooms()) {
+                log.debug("Not tracking occupancy of room [{}], already tracking {} rooms", roomId, rooms.size());
+                return;
+            }
+            window = rooms.computeIfAbsent(roomId, id -> new RoomWindow(bucketCount));
+        }
+        window.add(currentBucket(), studentIndex);
+    }
+
+    /**
+     * Estimates the occupancy of a room
+     *
+     * @param roomId The ID of the room
+     * @return The room's occupancy; zero devices when nobody was verified in it within the window
+     */
+    public RoomOccupancyDTO estimate(String roomId) {
+        RoomWindow window = rooms.get(roomId);
+        return toOccupancy(roomId, window == null ? 0 : window.estimate(currentBucket()));
+    }
+
+    /**
+     * Estimates the occupancy of every room with verifications within the window
+     *
+     * @return The occupancy of each room, ordered by room ID
+     */
+    public List<RoomOccupancyDTO> estimateAll() {
+        long bucket = currentBucket();
+        return rooms.entrySet().stream()
+                .map(entry -> toOccupancy(entry.getKey(), entry.getValue().estimate(bucket)))
+                .filter(occupancy -> occupancy.getEstimatedDevices() > 0)
+                .sorted(Comparator.comparing(RoomOccupancyDTO::getRoomId))
+                .toList();
+    }
+
+    /**
+     * Streams the occupancy of all rooms at the configured interval
+     *
+     * @return A Flux of occupancy snapshots, starting from the moment of subscription
+     */
+    public Flux<List<RoomOccupancyDTO>> updates() {
+        return updates;
+    }
+
+    @Scheduled(fixedDelay = 60000) // Forgets rooms without verifications within the window every minute
+    void evictIdleRooms() {
+        long bucket = currentBucket();
+        rooms.entrySet().removeIf(entry -> entry.getValue().isIdle(bucket));
+    }
+
+    private RoomOccupancyDTO toOccupancy(String roomId, long estimatedDevices) {
+        return RoomOccupancyDTO.builder()
+                .roomId(roomId)
+                .estimatedDevices(estimatedDevices)
+                .windowMinutes(bucketCount * Math.max(properties.getBucketMinutes(), 1))
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    private long currentBucket() {
+        return System.currentTimeMillis() / bucketMillis;
+    }
+
+    /**
+     * Ring of per-bucket sketches of one room; a slot is reused once its bucket leaves the window
+     */
+    private static final class RoomWindow {
+
+        private final HyperLogLog[] sketches;
+        private final long[] buckets;
+        private long lastBucket;
+
+        RoomWindow(int bucketCount) {
+            this.sketches = new HyperLogLog[bucketCount];
+            this.buckets = new long[bucketCount];
+            for (int i = 0; i < bucketCount; i++) {
+                sketches[i] = new HyperLogLog();
+                buckets[i] = -1;
+            }
+        }
+
+        synchronized void add(long bucket, String studentIndex) {
+            int slot = (int) (bucket % sketches.length);
+            if (buckets[slot] != bucket) {
+                sketches[slot].clear();
+                buckets[slot] = bucket;
+            }
+            sketches[slot].add(studentIndex);
+            lastBucket = Math.max(lastBucket, bucket);
+        }
+
+        synchronized long estimate(long currentBucket) {
+            HyperLogLog merged = new HyperLogLog();
+            for (int i = 0; i < sketches.length; i++) {
+                if (buckets[i] > currentBucket - sketches.length) {
+                    merged.merge(sketches[i]);
+                }
+            }
+            return merged.estimate();
+        }
+
+        synchronized boolean isIdle(long currentBucket) {
+            return lastBucket <= currentBucket - sketches.length;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package mk.ukim.finki.attendanceappserver.util;
+
+import com.google.zxing.common.BitMatrix;
+import lombok.experimental.UtilityClass;
+
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a ZXing BitMatrix as a 1-bit grayscale PNG without going through BufferedImage and ImageIO.
+ * The matrix is expected at one pixel per module; each module is scaled up to a square of pixels here,
+ * so a scanline is built once per module row and repeated. Scanline, deflate and output buffers are
+ * reused per thread, leaving the returned array as the only allocation per image.
+ */
+@UtilityClass
+public class BitMatrixPngEncoder {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final byte[] IHDR = {'I', 'H', 'D', 'R'};
+    private static final byte[] IDAT = {'I', 'D', 'A', 'T'};
+    private static final byte[] IEND = {'I', 'E', 'N', 'D'};
+    private static final int BIT_DEPTH = 1;
+    private static final int COLOR_TYPE_GRAYSCALE = 0;
+    private static final int CHUNK_OVERHEAD = 12; // Length, type and CRC
+
+    private static final ThreadLocal<EncoderState> STATE = ThreadLocal.withInitial(EncoderState::new);
+
+    /**
+     * Encodes a matrix as a square PNG, scaling every module by the same whole number of pixels and
+     * centering the result, as MatrixToImageWriter does for a matrix rendered at the target size
+     *
+     * @param matrix The matrix at one pixel per module, including its quiet zone
+     * @param size The minimum width and height of the image in pixels
+     * @return The PNG image
+     */
+    public static byte[] encode(BitMatrix matrix, int size) {
+        int modules = Math.max(matrix.getWidth(), matrix.getHeight());
+        int scale = Math.max(size / modules, 1);
+        int imageSize = Math.max(size, modules * scale);
+        int padding = (imageSize - modules * scale) / 2;
+        int rowBytes = (imageSize + 7) / 8;
+        int scanlineBytes = rowBytes + 1; // Filter type byte
+
+        EncoderState state = STATE.get();
+        byte[] raw = state.raw(scanlineBytes * imageSize);
+
+        // Quiet area above and below the matrix is white; bit value 1 is white in 1-bit grayscale
+        byte[] whiteRow = state.row(scanlineBytes);
+        Arrays.fill(whiteRow, (byte) 0xff);
+        whiteRow[0] = 0;
+        int offset = 0;
+        for (int y = 0; y < padding; y++, offset += scanlineBytes) {
+            System.arraycopy(whiteRow, 0, raw, offset, scanlineBytes);
+        }
+        for (int moduleY = 0; moduleY < matrix.getHeight(); moduleY++) {
+            int rowStart = offset;
+            raw[offset] = 0;
+            Arrays.fill(raw, offset + 1, offset + scanlineBytes, (byte) 0xff);
+            for (int moduleX = 0; moduleX < matrix.getWidth(); moduleX++) {
+                if (matrix.get(moduleX, moduleY)) {
+                    clearBits(raw, rowStart + 1, padding + moduleX * scale, scale);
+                }
+            }
+            offset += scanlineBytes;
+            for (int repeat = 1; repeat < scale; repeat++, offset += scanlineBytes) {
+                System.arraycopy(raw, rowStart, raw, offset, scanlineBytes);
+            }
+        }
+        while (offset < scanlineBytes * imageSize) {
+            System.arraycopy(whiteRow, 0, raw, offset, scanlineBytes);
+            offset += scanlineBytes;
+        }
+
+        Deflater deflater = state.deflater;
+        deflater.reset();
+        deflater.setInput(raw, 0, offset);
+        deflater.finish();
+        byte[] compressed = state.compressed;
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length) {
+                compressed = state.growCompressed();
+            }
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+
+        byte[] png = new byte[PNG_SIGNATURE.length + CHUNK_OVERHEAD * 3 + 13 + compressedLength];
+        System.arraycopy(PNG_SIGNATURE, 0, png, 0, PNG_SIGNATURE.length);
+        int position = PNG_SIGNATURE.length;
+
+        byte[] header = state.header;
+        writeInt(header, 0, imageSize);
+        writeInt(header, 4, imageSize);
+        header[8] = BIT_DEPTH;
+        header[9] = COLOR_TYPE_GRAYSCALE;
+        header[10] = 0; // Deflate compression
+        header[11] = 0; // Adaptive filtering, every scanline uses filter type None
+        header[12] = 0; // No interlacing
+        position = writeChunk(png, position, IHDR, header, 13, state.crc);
+        position = writeChunk(png, position, IDAT, compressed, compressedLength, state.crc);
+        writeChunk(png, position, IEND, header, 0, state.crc);
+        return png;
+    }
+
+    private static void clearBits(byte[] row, int rowOffset, int fromBit, int count) {
+        for (int bit = fromBit; bit < fromBit + count; bit++) {
+            row[rowOffset + (bit >> 3)] &= (byte) ~(0x80 >>> (bit & 7));
+        }
+    }
+
+    private static int writeChunk(byte[] png, int position, byte[] type, byte[] data, int length, CRC32 crc) {
+        writeInt(png, position, length);
+        System.arraycopy(type, 0, png, position + 4, 4);
+        System.arraycopy(data, 0, png, position + 8, length);
+        crc.reset();
+        crc.update(png, position + 4, length + 4);
+        writeInt(png, position + 8 + length, (int) crc.getValue());
+        return position + CHUNK_OVERHEAD + length;
+    }
+
+    private static void writeInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Buffers of one thread, grown to the largest image encoded so far
+     */
+    private static final class EncoderState {
+
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        private final CRC32 crc = new CRC32();
+        private final byte[] header = new byte[13];
+        private byte[] raw = new byte[0];
+        private byte[] row = new byte[0];
+        private byte[] compressed = new byte[4096];
+
+        byte[] raw(int length) {
+            if (raw.length < length) {
+                raw = new byte[length];
+            }
+            return raw;
+        }
+
+        byte[] row(int length) {
+            if (row.length < length) {
+                row = new byte[length];
+            }
+            return row;
+        }
+
+        byte[] growCompressed() {
+            compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            return compressed;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package mk.ukim.finki.attendanceappserver.util;
+
+import com.google.zxing.common.BitMatrix;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Writes a ZXing BitMatrix as a compact SVG: one module per user unit and a single path in which
+ * every horizontal run of dark modules is one rectangle, so the image scales to any resolution
+ */
+@UtilityClass
+public class BitMatrixSvgEncoder {
+
+    /**
+     * @param matrix The matrix at one pixel per module, including its quiet zone
+     * @return The SVG document
+     */
+    public static String encode(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        StringBuilder svg = new StringBuilder(width * height / 2 + 256)
+                .append("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 ").append(width).append(' ').append(height)
+                .append("\" shape-rendering=\"crispEdges\"><rect width=\"100%\" height=\"100%\" fill=\"#fff\"/><path d=\"");
+        for (int y = 0; y < height; y++) {
+            int x = 0;
+            while (x < width) {
+                if (!matrix.get(x, y)) {
+                    x++;
+                    continue;
+                }
+                int runStart = x;
+                while (x < width && matrix.get(x, y)) {
+                    x++;
+                }
+                int run = x - runStart;
+                svg.append('M').append(runStart).append(' ').append(y)
+                        .append('h').append(run).append("v1h-").append(run).append('z');
+            }
+        }
+        return svg.append("\"/></svg>").toString();
+    }
+}
@@ -0,0 +1,111 @@
+package mk.ukim.finki.attendanceappserver.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Fixed-size HyperLogLog sketch for approximate distinct counting.
+ * With 2^precision one-byte registers the standard error is about 1.04 / sqrt(2^precision),
+ * e.g. 3.25% with the default precision of 10 (1 KiB). Not thread-safe.
+ */
+public final class HyperLogLog {
+
+    public static final int DEFAULT_PRECISION = 10;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between 4 and 16");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Adds a value to the sketch
+     *
+     * @param value The value to count
+     */
+    public void add(String value) {
+        addHash(hash(value));
+    }
+
+    /**
+     * Adds a 64-bit hash to the sketch
+     *
+     * @param hash A well-mixed hash of the value to count
+     */
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << precision), 64 - precision) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Merges another sketch of the same precision into this one
+     *
+     * @param other The sketch to merge
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge HyperLogLog sketches of different precision");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(registers, (byte) 0);
+    }
+
+    /**
+     * @return The estimated number of distinct values added
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeroRegisters = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeroRegisters++;
+            }
+        }
+
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        // Linear counting is more accurate while many registers are still empty
+        if (estimate <= 2.5 * m && zeroRegisters > 0) {
+            estimate = m * Math.log((double) m / zeroRegisters);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, followed by the MurmurHash3 finalizer to spread the high bits
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,34 @@
+--liquibase formatted sql
+--changeset stamencho-bogdanovski:student-attendance-unique-registration
+
+-- Collapse duplicate registrations created by concurrent scans, keeping the verified (or most recent) record
+WITH ranked AS (
+    SELECT id,
+           FIRST_VALUE(id) OVER (
+               PARTITION BY student_student_index, professor_class_session_id
+               ORDER BY CASE WHEN status IN ('PRESENT', 'ABSENT') THEN 0 ELSE 1 END, arrival_time DESC NULLS LAST, id
+           ) AS keep_id
+    FROM student_attendance
+)
+UPDATE proximity_verification_log pvl
+SET student_attendance_id = ranked.keep_id
+FROM ranked
+WHERE pvl.student_attendance_id = ranked.id AND ranked.id <> ranked.keep_id;
+
+WITH ranked AS (
+    SELECT id,
+           FIRST_VALUE(id) OVER (
+               PARTITION BY student_student_index, professor_class_session_id
+               ORDER BY CASE WHEN status IN ('PRESENT', 'ABSENT') THEN 0 ELSE 1 END, arrival_time DESC NULLS LAST, id
+           ) AS keep_id
+    FROM student_attendance
+)
+DELETE FROM student_attendance sa
+USING ranked
+WHERE sa.id = ranked.id AND ranked.id <> ranked.keep_id;
+
+-- One attendance record per student per class session, required by the ON CONFLICT upsert
+ALTER TABLE student_attendance
+ADD CONSTRAINT uq_student_attendance_student_session UNIQUE (student_student_index, professor_class_session_id);
+
+--rollback ALTER TABLE student_attendance DROP CONSTRAINT IF EXISTS uq_student_attendance_student_session;
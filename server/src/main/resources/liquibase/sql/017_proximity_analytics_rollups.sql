@@ -0,0 +1,71 @@
+--liquibase formatted sql
+--changeset stamencho-bogdanovski:proximity-analytics-rollups
+
+-- Verification outcomes per room and day / hour, maintained by the verification pipeline
+CREATE TABLE IF NOT EXISTS proximity_room_daily_rollup (
+    room_id VARCHAR(255) NOT NULL,
+    day DATE NOT NULL,
+    total_verifications INTEGER NOT NULL DEFAULT 0,
+    successful_verifications INTEGER NOT NULL DEFAULT 0,
+    low_confidence_verifications INTEGER NOT NULL DEFAULT 0,
+    failed_verifications INTEGER NOT NULL DEFAULT 0,
+    wrong_room_verifications INTEGER NOT NULL DEFAULT 0,
+    success_distance_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    success_distance_count INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (room_id, day)
+);
+
+CREATE TABLE IF NOT EXISTS proximity_room_hourly_rollup (
+    room_id VARCHAR(255) NOT NULL,
+    hour TIMESTAMP NOT NULL,
+    total_verifications INTEGER NOT NULL DEFAULT 0,
+    successful_verifications INTEGER NOT NULL DEFAULT 0,
+    low_confidence_verifications INTEGER NOT NULL DEFAULT 0,
+    failed_verifications INTEGER NOT NULL DEFAULT 0,
+    wrong_room_verifications INTEGER NOT NULL DEFAULT 0,
+    success_distance_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    success_distance_count INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (room_id, hour)
+);
+
+-- Backfill from the existing verification summaries (raw detections are logged as ONGOING)
+INSERT INTO proximity_room_daily_rollup (room_id, day, total_verifications, successful_verifications,
+                                         low_confidence_verifications, failed_verifications, wrong_room_verifications,
+                                         success_distance_sum, success_distance_count)
+SELECT detected_room_id,
+       CAST(verification_timestamp AS DATE),
+       COUNT(*),
+       COUNT(*) FILTER (WHERE verification_status = 'SUCCESS'),
+       COUNT(*) FILTER (WHERE verification_status = 'SUCCESS_LOW_CONFIDENCE'),
+       COUNT(*) FILTER (WHERE verification_status IN ('FAILED', 'TIMEOUT', 'OUT_OF_RANGE')),
+       COUNT(*) FILTER (WHERE verification_status = 'WRONG_ROOM'),
+       COALESCE(SUM(estimated_distance) FILTER (WHERE verification_status = 'SUCCESS'), 0),
+       COUNT(estimated_distance) FILTER (WHERE verification_status = 'SUCCESS')
+FROM proximity_verification_log
+WHERE detected_room_id IS NOT NULL AND verification_status <> 'ONGOING'
+GROUP BY detected_room_id, CAST(verification_timestamp AS DATE)
+ON CONFLICT (room_id, day) DO NOTHING;
+
+INSERT INTO proximity_room_hourly_rollup (room_id, hour, total_verifications, successful_verifications,
+                                          low_confidence_verifications, failed_verifications, wrong_room_verifications,
+                                          success_distance_sum, success_distance_count)
+SELECT detected_room_id,
+       DATE_TRUNC('hour', verification_timestamp),
+       COUNT(*),
+       COUNT(*) FILTER (WHERE verification_status = 'SUCCESS'),
+       COUNT(*) FILTER (WHERE verification_status = 'SUCCESS_LOW_CONFIDENCE'),
+       COUNT(*) FILTER (WHERE verification_status IN ('FAILED', 'TIMEOUT', 'OUT_OF_RANGE')),
+       COUNT(*) FILTER (WHERE verification_status = 'WRONG_ROOM'),
+       COALESCE(SUM(estimated_distance) FILTER (WHERE verification_status = 'SUCCESS'), 0),
+       COUNT(estimated_distance) FILTER (WHERE verification_status = 'SUCCESS')
+FROM proximity_verification_log
+WHERE detected_room_id IS NOT NULL AND verification_status <> 'ONGOING'
+GROUP BY detected_room_id, DATE_TRUNC('hour', verification_timestamp)
+ON CONFLICT (room_id, hour) DO NOTHING;
+
+-- Keyset pagination of a room's raw logs
+CREATE INDEX IF NOT EXISTS idx_proximity_log_detected_room_id ON proximity_verification_log(detected_room_id, id DESC);
+
+--rollback DROP INDEX IF EXISTS idx_proximity_log_detected_room_id;
+--rollback DROP TABLE IF EXISTS proximity_room_hourly_rollup;
+--rollback DROP TABLE IF EXISTS proximity_room_daily_rollup;
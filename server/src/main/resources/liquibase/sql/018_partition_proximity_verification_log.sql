@@ -0,0 +1,216 @@
+--liquibase formatted sql
+
+--changeset stamencho-bogdanovski:proximity-detection-summary
+-- Downsampled raw detections: one row per verification and beacon once the raw rows are removed
+CREATE TABLE IF NOT EXISTS proximity_detection_summary (
+    id BIGSERIAL PRIMARY KEY,
+    student_attendance_id INTEGER REFERENCES student_attendance(id) ON DELETE CASCADE,
+    student_index VARCHAR(255) NOT NULL,
+    session_token VARCHAR(255),
+    beacon_device_id VARCHAR(255),
+    detected_room_id VARCHAR(255),
+    detection_count INTEGER NOT NULL,
+    near_count INTEGER NOT NULL,
+    medium_count INTEGER NOT NULL,
+    far_count INTEGER NOT NULL,
+    out_of_range_count INTEGER NOT NULL,
+    avg_rssi DOUBLE PRECISION,
+    min_rssi INTEGER,
+    max_rssi INTEGER,
+    avg_distance DOUBLE PRECISION,
+    first_detection TIMESTAMP NOT NULL,
+    last_detection TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_proximity_detection_summary_attendance ON proximity_detection_summary(student_attendance_id);
+CREATE INDEX IF NOT EXISTS idx_proximity_detection_summary_first_detection ON proximity_detection_summary USING BRIN (first_detection);
+
+-- Months of proximity_verification_log whose raw detections were already downsampled
+CREATE TABLE IF NOT EXISTS proximity_log_partition_compaction (
+    month DATE PRIMARY KEY,
+    compacted_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+--rollback DROP TABLE IF EXISTS proximity_log_partition_compaction;
+--rollback DROP TABLE IF EXISTS proximity_detection_summary;
+
+--changeset stamencho-bogdanovski:proximity-log-partition-functions splitStatements:false runOnChange:true
+-- Creates the monthly partition of proximity_verification_log containing the given day.
+-- Rows of that month which already landed in the default partition are moved into it, since they would
+-- otherwise violate the new partition's range
+CREATE OR REPLACE FUNCTION create_proximity_log_partition(p_month DATE) RETURNS VOID AS $$
+DECLARE
+    v_start DATE := date_trunc('month', p_month)::date;
+    v_end DATE := (date_trunc('month', p_month) + INTERVAL '1 month')::date;
+    v_partition TEXT := 'proximity_verification_log_p' || to_char(v_start, 'YYYYMM');
+    v_has_default_rows BOOLEAN := FALSE;
+BEGIN
+    IF to_regclass(v_partition) IS NOT NULL THEN
+        RETURN;
+    END IF;
+
+    IF to_regclass('proximity_verification_log_default') IS NOT NULL THEN
+        SELECT EXISTS (SELECT 1 FROM proximity_verification_log_default
+                       WHERE verification_timestamp >= v_start AND verification_timestamp < v_end)
+        INTO v_has_default_rows;
+    END IF;
+
+    IF NOT v_has_default_rows THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF proximity_verification_log FOR VALUES FROM (%L) TO (%L)',
+                       v_partition, v_start, v_end);
+        RETURN;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE proximity_verification_log INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', v_partition);
+    EXECUTE format($sql$
+        WITH moved AS (
+            DELETE FROM proximity_verification_log_default
+            WHERE verification_timestamp >= %L AND verification_timestamp < %L
+            RETURNING *
+        )
+        INSERT INTO %I SELECT * FROM moved
+    $sql$, v_start, v_end, v_partition);
+    EXECUTE format('ALTER TABLE proximity_verification_log ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   v_partition, v_start, v_end);
+END;
+$$ LANGUAGE plpgsql;
+
+-- Aggregates the raw detections (status ONGOING) of a partition into proximity_detection_summary
+CREATE OR REPLACE FUNCTION summarize_proximity_log_partition(p_partition TEXT) RETURNS VOID AS $$
+BEGIN
+    EXECUTE format($sql$
+        INSERT INTO proximity_detection_summary (student_attendance_id, student_index, session_token, beacon_device_id,
+                                                 detected_room_id, detection_count, near_count, medium_count, far_count,
+                                                 out_of_range_count, avg_rssi, min_rssi, max_rssi, avg_distance,
+                                                 first_detection, last_detection)
+        SELECT student_attendance_id, student_index, session_token, beacon_device_id, detected_room_id,
+               COUNT(*),
+               COUNT(*) FILTER (WHERE proximity_level = 'NEAR'),
+               COUNT(*) FILTER (WHERE proximity_level = 'MEDIUM'),
+               COUNT(*) FILTER (WHERE proximity_level = 'FAR'),
+               COUNT(*) FILTER (WHERE proximity_level = 'OUT_OF_RANGE'),
+               AVG(rssi), MIN(rssi), MAX(rssi), AVG(estimated_distance),
+               MIN(verification_timestamp), MAX(verification_timestamp)
+        FROM %I
+        WHERE verification_status = 'ONGOING'
+        GROUP BY student_attendance_id, student_index, session_token, beacon_device_id, detected_room_id
+    $sql$, p_partition);
+END;
+$$ LANGUAGE plpgsql;
+
+-- Downsamples the raw detections of a closed monthly partition and deletes them from it.
+-- The DELETE targets the partition directly, so it only locks that partition and never the parent table
+CREATE OR REPLACE FUNCTION compact_proximity_log_partition(p_month DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    v_start DATE := date_trunc('month', p_month)::date;
+    v_partition TEXT := 'proximity_verification_log_p' || to_char(v_start, 'YYYYMM');
+BEGIN
+    IF to_regclass(v_partition) IS NULL
+       OR EXISTS (SELECT 1 FROM proximity_log_partition_compaction WHERE month = v_start) THEN
+        RETURN FALSE;
+    END IF;
+
+    PERFORM summarize_proximity_log_partition(v_partition);
+    EXECUTE format('DELETE FROM %I WHERE verification_status = ''ONGOING''', v_partition);
+
+    INSERT INTO proximity_log_partition_compaction (month) VALUES (v_start);
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Drops the monthly partitions ending on or before the given day, downsampling raw detections not compacted yet
+CREATE OR REPLACE FUNCTION drop_proximity_log_partitions(p_before DATE) RETURNS INTEGER AS $$
+DECLARE
+    v_partition RECORD;
+    v_dropped INTEGER := 0;
+BEGIN
+    FOR v_partition IN
+        SELECT c.relname AS name, to_date(right(c.relname, 6), 'YYYYMM') AS month
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'proximity_verification_log'::regclass
+          AND c.relname ~ '^proximity_verification_log_p[0-9]{6}$'
+    LOOP
+        CONTINUE WHEN (v_partition.month + INTERVAL '1 month')::date > p_before;
+
+        IF NOT EXISTS (SELECT 1 FROM proximity_log_partition_compaction WHERE month = v_partition.month) THEN
+            PERFORM summarize_proximity_log_partition(v_partition.name);
+        END IF;
+        EXECUTE format('DROP TABLE %I', v_partition.name);
+        DELETE FROM proximity_log_partition_compaction WHERE month = v_partition.month;
+        v_dropped := v_dropped + 1;
+    END LOOP;
+    RETURN v_dropped;
+END;
+$$ LANGUAGE plpgsql;
+
+--rollback DROP FUNCTION IF EXISTS drop_proximity_log_partitions(DATE);
+--rollback DROP FUNCTION IF EXISTS compact_proximity_log_partition(DATE);
+--rollback DROP FUNCTION IF EXISTS summarize_proximity_log_partition(TEXT);
+--rollback DROP FUNCTION IF EXISTS create_proximity_log_partition(DATE);
+
+--changeset stamencho-bogdanovski:partition-proximity-verification-log splitStatements:false
+-- Move the existing table aside, keeping its id sequence for the partitioned table
+ALTER TABLE proximity_verification_log RENAME TO proximity_verification_log_legacy;
+ALTER INDEX proximity_verification_log_pkey RENAME TO proximity_verification_log_legacy_pkey;
+ALTER TABLE proximity_verification_log_legacy ALTER COLUMN id DROP DEFAULT;
+ALTER SEQUENCE proximity_verification_log_id_seq OWNED BY NONE;
+
+-- Monthly range partitions on verification_timestamp; the partition key has to be part of the primary key
+CREATE TABLE proximity_verification_log (
+    id BIGINT NOT NULL DEFAULT nextval('proximity_verification_log_id_seq'),
+    student_attendance_id INTEGER,
+    student_index VARCHAR(255) NOT NULL,
+    beacon_device_id VARCHAR(255),
+    detected_room_id VARCHAR(255),
+    expected_room_id VARCHAR(255),
+    rssi INTEGER,
+    proximity_level VARCHAR(20) CHECK (proximity_level IN ('NEAR', 'MEDIUM', 'FAR', 'OUT_OF_RANGE')),
+    estimated_distance DECIMAL(5,2),
+    verification_timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    verification_status VARCHAR(30)
+        CHECK (verification_status IN ('SUCCESS', 'SUCCESS_LOW_CONFIDENCE', 'FAILED', 'TIMEOUT', 'WRONG_ROOM', 'OUT_OF_RANGE', 'ONGOING')),
+    verification_duration_seconds INTEGER,
+    beacon_type VARCHAR(30) CHECK (beacon_type IN ('DEDICATED', 'PROFESSOR_PHONE')),
+    session_token VARCHAR(255),
+    PRIMARY KEY (id, verification_timestamp)
+) PARTITION BY RANGE (verification_timestamp);
+
+ALTER SEQUENCE proximity_verification_log_id_seq OWNED BY proximity_verification_log.id;
+
+-- Partitions from the oldest existing log up to three months ahead; later months are created by the retention job
+DO $$
+DECLARE
+    v_month DATE := date_trunc('month', COALESCE((SELECT MIN(verification_timestamp) FROM proximity_verification_log_legacy), now()))::date;
+BEGIN
+    WHILE v_month <= (date_trunc('month', now()) + INTERVAL '3 months')::date LOOP
+        PERFORM create_proximity_log_partition(v_month);
+        v_month := (v_month + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+-- Catches rows outside the created months, so inserts never fail if the job falls behind
+CREATE TABLE proximity_verification_log_default PARTITION OF proximity_verification_log DEFAULT;
+
+INSERT INTO proximity_verification_log (id, student_attendance_id, student_index, beacon_device_id, detected_room_id,
+                                        expected_room_id, rssi, proximity_level, estimated_distance,
+                                        verification_timestamp, verification_status, verification_duration_seconds,
+                                        beacon_type, session_token)
+SELECT id, student_attendance_id, student_index, beacon_device_id, detected_room_id,
+       expected_room_id, rssi, proximity_level, estimated_distance,
+       verification_timestamp, verification_status, verification_duration_seconds,
+       beacon_type, session_token
+FROM proximity_verification_log_legacy;
+
+DROP TABLE proximity_verification_log_legacy;
+
+ALTER TABLE proximity_verification_log
+ADD CONSTRAINT fk_proximity_log_student_attendance
+FOREIGN KEY (student_attendance_id) REFERENCES student_attendance(id) ON DELETE CASCADE;
+
+-- Rows arrive in time order, so a BRIN index covers time ranges at a fraction of the size of a btree
+CREATE INDEX idx_proximity_log_verification_timestamp ON proximity_verification_log USING BRIN (verification_timestamp);
+CREATE INDEX idx_proximity_log_student_index ON proximity_verification_log(student_index, verification_timestamp);
+CREATE INDEX idx_proximity_log_room_timestamp ON proximity_verification_log(detected_room_id, verification_timestamp);
+CREATE INDEX idx_proximity_log_detected_room_id ON proximity_verification_log(detected_room_id, id DESC);
+CREATE INDEX idx_proximity_log_student_attendance_id ON proximity_verification_log(student_attendance_id);
@@ -0,0 +1,42 @@
+--liquibase formatted sql
+
+--changeset stamencho-bogdanovski:beacon-registry
+-- Dedicated BLE beacons and the rooms they are installed in (BEACON_ID / ROOM_ID of the beacon firmware)
+CREATE TABLE IF NOT EXISTS beacon_registry (
+    beacon_id VARCHAR(8) PRIMARY KEY,
+    room_id VARCHAR(255) NOT NULL,
+    building VARCHAR(50),
+    floor SMALLINT,
+    tx_power SMALLINT,
+    active BOOLEAN NOT NULL DEFAULT true,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Beacons from ble-beacon/arduino/configs/classroom_configs.h
+INSERT INTO beacon_registry (beacon_id, room_id, building, floor, tx_power) VALUES
+    ('BCN01', '101A', 'FINKI', 1, -4),
+    ('BCN02', '102', 'FINKI', 1, -8),
+    ('BCN03', '201A', 'FINKI', 2, -4),
+    ('BCN04', '202', 'FINKI', 2, -8),
+    ('BCN05', '301', 'FINKI', 3, -12),
+    ('BCN06', 'AMPH', 'FINKI', 0, 0),
+    ('BCN07', 'LIB', 'FINKI', 1, -8)
+ON CONFLICT (beacon_id) DO NOTHING;
+
+--rollback DROP TABLE IF EXISTS beacon_registry;
+
+--changeset stamencho-bogdanovski:beacon-registry-updated-at splitStatements:false
+-- Keeps updated_at current, which the server polls to reload its in-memory registry
+CREATE OR REPLACE FUNCTION touch_beacon_registry() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.updated_at := CURRENT_TIMESTAMP;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_beacon_registry_updated_at
+BEFORE UPDATE ON beacon_registry
+FOR EACH ROW EXECUTE FUNCTION touch_beacon_registry();
+
+--rollback DROP TRIGGER IF EXISTS trg_beacon_registry_updated_at ON beacon_registry;
+--rollback DROP FUNCTION IF EXISTS touch_beacon_registry();
@@ -0,0 +1,22 @@
+--liquibase formatted sql
+
+--changeset stamencho-bogdanovski:proximity-room-calibration
+-- Per room proximity thresholds computed from historical detections; every calibration run writes a new version
+CREATE SEQUENCE IF NOT EXISTS proximity_room_calibration_version_seq;
+
+CREATE TABLE IF NOT EXISTS proximity_room_calibration (
+    room_id VARCHAR(255) NOT NULL,
+    version BIGINT NOT NULL,
+    sample_count INTEGER NOT NULL,
+    near_rssi_threshold INTEGER NOT NULL,
+    medium_rssi_threshold INTEGER NOT NULL,
+    far_rssi_threshold INTEGER NOT NULL,
+    max_distance_threshold DOUBLE PRECISION NOT NULL,
+    computed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (room_id, version)
+);
+
+CREATE INDEX IF NOT EXISTS idx_proximity_room_calibration_version ON proximity_room_calibration(version);
+
+--rollback DROP TABLE IF EXISTS proximity_room_calibration;
+--rollback DROP SEQUENCE IF EXISTS proximity_room_calibration_version_seq;